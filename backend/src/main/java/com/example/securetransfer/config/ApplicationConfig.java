@@ -1,38 +1,52 @@
 package com.example.securetransfer.config;
 
-import lombok.RequiredArgsConstructor;
+import com.example.securetransfer.model.User;
+import com.example.securetransfer.repository.UserRepository;
+import org.springframework.boot.CommandLineRunner;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.AuthenticationProvider;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
-import org.springframework.security.core.userdetails.User;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
-import org.springframework.security.provisioning.InMemoryUserDetailsManager;
+import java.time.Instant;
+import java.util.UUID;
 
 @Configuration
-@RequiredArgsConstructor
 public class ApplicationConfig {
 
+    // Users are stored in the database (see JpaUserDetailsService); seed the demo accounts on first start.
     @Bean
-    public UserDetailsService userDetailsService() {
-        // For demo purposes, we use an in-memory user store.
-        // In production, you would connect this to your user database (JPA).
-        UserDetails alice = User.builder().username("alice").password(passwordEncoder().encode("alice123")).roles("USER").build();
-        UserDetails bob = User.builder().username("bob").password(passwordEncoder().encode("bob123")).roles("USER").build();
-        UserDetails charlie = User.builder().username("charlie").password(passwordEncoder().encode("charlie123")).roles("USER").build();
-        return new InMemoryUserDetailsManager(alice, bob, charlie);
+    public CommandLineRunner seedDemoUsers(UserRepository userRepository, PasswordEncoder passwordEncoder) {
+        return args -> {
+            for (String username : new String[] {"alice", "bob", "charlie"}) {
+                if (!userRepository.existsByUsername(username)) {
+                    User user = new User();
+                    user.setId(UUID.randomUUID());
+                    user.setUsername(username);
+                    user.setPasswordHash(passwordEncoder.encode(username + "123"));
+                    user.setRole("USER");
+                    user.setEnabled(true);
+                    user.setCreatedAt(Instant.now());
+                    try {
+                        userRepository.save(user);
+                    } catch (DataIntegrityViolationException e) {
+                        // Another cluster node seeded it at the same time
+                    }
+                }
+            }
+        };
     }
 
     @Bean
-    public AuthenticationProvider authenticationProvider() {
+    public AuthenticationProvider authenticationProvider(UserDetailsService userDetailsService, PasswordEncoder passwordEncoder) {
         DaoAuthenticationProvider authProvider = new DaoAuthenticationProvider();
-        authProvider.setUserDetailsService(userDetailsService());
-        authProvider.setPasswordEncoder(passwordEncoder());
+        authProvider.setUserDetailsService(userDetailsService);
+        authProvider.setPasswordEncoder(passwordEncoder);
         return authProvider;
     }
 
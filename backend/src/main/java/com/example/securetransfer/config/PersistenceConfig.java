@@ -0,0 +1,21 @@
+package com.example.securetransfer.config;
+
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class PersistenceConfig {
+
+    // JDBC batching defaults for TransferBatchWriter's group commits. Explicit
+    // spring.jpa.properties.hibernate.* settings still take precedence.
+    @Bean
+    public HibernatePropertiesCustomizer jdbcBatchingCustomizer() {
+        return properties -> {
+            properties.putIfAbsent("hibernate.jdbc.batch_size", "50");
+            properties.putIfAbsent("hibernate.order_inserts", "true");
+            properties.putIfAbsent("hibernate.order_updates", "true");
+            properties.putIfAbsent("hibernate.jdbc.batch_versioned_data", "true");
+        };
+    }
+}
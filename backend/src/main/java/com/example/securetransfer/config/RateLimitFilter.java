@@ -0,0 +1,63 @@
+package com.example.securetransfer.config;
+
+import com.example.securetransfer.service.ClusterService;
+import com.example.securetransfer.service.RateLimitService;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import java.io.IOException;
+
+@Component
+@RequiredArgsConstructor
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private final RateLimitService rateLimitService;
+    private final ClusterService clusterService;
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        return !request.getServletPath().startsWith("/api/") || "OPTIONS".equals(request.getMethod());
+    }
+
+    @Override
+    protected void doFilterInternal(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain
+    ) throws ServletException, IOException {
+        String clientIp = request.getRemoteAddr();
+
+        // Requests forwarded by a peer node were rate limited where they entered the cluster;
+        // counting them again would put every forwarded user in the peer's single IP bucket
+        if (clusterService.isForwardedByPeer(request.getHeader(ClusterService.FORWARDED_HEADER), clientIp)) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        long waitNanos = rateLimitService.tryAcquireApiRequest(clientIp);
+        // Each login costs a BCrypt check, so logins get a much smaller per-IP budget
+        if (waitNanos == 0 && "POST".equals(request.getMethod()) && request.getServletPath().equals("/api/auth/login")) {
+            waitNanos = rateLimitService.tryAcquireLoginByIp(clientIp);
+        }
+        if (waitNanos > 0) {
+            rejectTooManyRequests(response, waitNanos);
+            return;
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    static void rejectTooManyRequests(HttpServletResponse response, long waitNanos) throws IOException {
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, RateLimitService.retryAfterSeconds(waitNanos));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.getWriter().write("{\"message\":\"Too many requests\"}");
+    }
+}
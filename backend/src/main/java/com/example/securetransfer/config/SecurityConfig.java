@@ -4,6 +4,7 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.boot.autoconfigure.security.servlet.PathRequest;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.security.config.Customizer;
 import org.springframework.security.authentication.AuthenticationProvider;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
@@ -18,12 +19,16 @@ import org.springframework.security.web.util.matcher.AntPathRequestMatcher; // <
 public class SecurityConfig {
 
     private final JwtAuthenticationFilter jwtAuthFilter;
+    private final RateLimitFilter rateLimitFilter;
+    private final UploadQuotaFilter uploadQuotaFilter;
     private final AuthenticationProvider authenticationProvider;
 
     @Bean
     public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
         http
             .csrf(csrf -> csrf.disable())
+            // Apply the MVC CORS mappings inside the security chain so rejections (e.g. 429) carry CORS headers
+            .cors(Customizer.withDefaults())
             .authorizeHttpRequests(auth -> auth
                 // Be extremely explicit to resolve ambiguity
                 .requestMatchers(PathRequest.toH2Console()).permitAll()
@@ -32,7 +37,11 @@ public class SecurityConfig {
             )
             .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
             .authenticationProvider(authenticationProvider)
+            // Rate limiting runs first so throttled requests never reach JWT parsing or authentication
+            .addFilterBefore(rateLimitFilter, UsernamePasswordAuthenticationFilter.class)
             .addFilterBefore(jwtAuthFilter, UsernamePasswordAuthenticationFilter.class)
+            // The upload quota needs the authenticated sender and must run before the multipart body is parsed
+            .addFilterAfter(uploadQuotaFilter, JwtAuthenticationFilter.class)
             .headers(headers -> headers.frameOptions(frameOptions -> frameOptions.sameOrigin()));
 
         return http.build();
@@ -0,0 +1,60 @@
+package com.example.securetransfer.config;
+
+import com.example.securetransfer.service.RateLimitService;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.lang.NonNull;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import java.io.IOException;
+
+/**
+ * Per-sender upload quota. The multipart body is parsed in full before the controller runs,
+ * so the quota is enforced here instead: the upload's Content-Length is charged to the
+ * sender's byte bucket and, if the sender is still over quota from earlier uploads, the
+ * request is rejected before any of the body has been read.
+ */
+@Component
+@RequiredArgsConstructor
+public class UploadQuotaFilter extends OncePerRequestFilter {
+
+    private final RateLimitService rateLimitService;
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        return !("POST".equals(request.getMethod()) && request.getServletPath().equals("/api/transfers"));
+    }
+
+    @Override
+    protected void doFilterInternal(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain
+    ) throws ServletException, IOException {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !rateLimitService.isEnabled()) {
+            // Unauthenticated uploads are rejected by the security chain
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        long contentLength = request.getContentLengthLong();
+        if (contentLength < 0) {
+            // A chunked upload could not be charged up front
+            response.setStatus(HttpStatus.LENGTH_REQUIRED.value());
+            return;
+        }
+        long waitNanos = rateLimitService.tryAcquireUpload(authentication.getName(), contentLength);
+        if (waitNanos > 0) {
+            RateLimitFilter.rejectTooManyRequests(response, waitNanos);
+            return;
+        }
+        filterChain.doFilter(request, response);
+    }
+}
@@ -1,6 +1,12 @@
 package com.example.securetransfer.config;
 
+import jakarta.servlet.MultipartConfigElement;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.web.servlet.MultipartProperties;
+import org.springframework.boot.web.servlet.MultipartConfigFactory;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
@@ -16,6 +22,21 @@ public class WebConfig implements WebMvcConfigurer {
             .allowedMethods("GET", "POST", "PUT", "DELETE", "OPTIONS")
             .allowedHeaders("*")
             .allowCredentials(true)
-            .exposedHeaders("Content-Disposition");
+            .exposedHeaders("Content-Disposition", "Retry-After");
+    }
+
+    // Replaces Boot's multipart config so that parts up to the small-file threshold stay in
+    // memory: the fast path then never reads its upload back from a servlet temp file. The
+    // other spring.servlet.multipart.* settings still apply; file-size-threshold is ignored.
+    @Bean
+    public MultipartConfigElement multipartConfigElement(
+            MultipartProperties multipartProperties,
+            @Value("${transfer.small-file.threshold:64KB}") DataSize smallFileThreshold) {
+        MultipartConfigFactory factory = new MultipartConfigFactory();
+        factory.setLocation(multipartProperties.getLocation());
+        factory.setMaxFileSize(multipartProperties.getMaxFileSize());
+        factory.setMaxRequestSize(multipartProperties.getMaxRequestSize());
+        factory.setFileSizeThreshold(smallFileThreshold);
+        return factory.createMultipartConfig();
     }
 }
\ No newline at end of file
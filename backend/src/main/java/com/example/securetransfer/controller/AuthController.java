@@ -3,20 +3,43 @@ package com.example.securetransfer.controller;
 import com.example.securetransfer.dto.AuthRequest;
 import com.example.securetransfer.dto.AuthResponse;
 import com.example.securetransfer.service.AuthService;
+import com.example.securetransfer.service.RateLimitService;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/api/auth")
 @RequiredArgsConstructor
 public class AuthController {
     private final AuthService authService;
+    private final RateLimitService rateLimitService;
     @PostMapping("/login")
-    public ResponseEntity<AuthResponse> authenticate(@RequestBody AuthRequest request) {
-        return ResponseEntity.ok(authService.authenticate(request));
+    public CompletableFuture<ResponseEntity<AuthResponse>> authenticate(@RequestBody AuthRequest request,
+                                                                        HttpServletRequest httpRequest) {
+        // Tighter limit for guessing one account than the per-IP login limit. It is per client and account,
+        // not per account alone, or anyone could lock a user out by sending bad passwords for them
+        long waitNanos = rateLimitService.tryAcquireLoginByUser(httpRequest.getRemoteAddr(), request.getUsername());
+        if (waitNanos > 0) {
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, RateLimitService.retryAfterSeconds(waitNanos))
+                .build());
+        }
+        // The BCrypt check runs on the password verification pool; the request thread is released meanwhile
+        try {
+            return authService.authenticateAsync(request).thenApply(ResponseEntity::ok);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .build());
+        }
     }
 }
\ No newline at end of file
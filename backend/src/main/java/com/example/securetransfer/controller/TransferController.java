@@ -1,12 +1,21 @@
 package com.example.securetransfer.controller;
 
+import com.example.securetransfer.dto.AuditEventResponse;
 import com.example.securetransfer.dto.TransferResponse;
 import com.example.securetransfer.dto.TransferStatusResponse;
+import com.example.securetransfer.model.AuditEventType;
 import com.example.securetransfer.model.Transfer;
 import com.example.securetransfer.model.TransferStatus;
 import com.example.securetransfer.repository.TransferRepository;
+import com.example.securetransfer.service.AuditService;
+import com.example.securetransfer.service.ClusterService;
 import com.example.securetransfer.service.FileStorageService;
+import com.example.securetransfer.service.RateLimitService;
 import com.example.securetransfer.service.SecureTransferProtocolService;
+import com.example.securetransfer.service.SmallFileBufferPool;
+import com.example.securetransfer.service.StorageLifecycleService;
+import com.example.securetransfer.service.TransferBatchWriter;
+import com.example.securetransfer.service.TransferStatusService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.core.io.Resource;
 import org.springframework.http.HttpHeaders;
@@ -17,6 +26,7 @@ import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 import java.io.IOException;
 import java.time.Instant;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -28,11 +38,19 @@ public class TransferController {
     private final SecureTransferProtocolService protocolService;
     private final FileStorageService fileStorageService;
     private final TransferRepository transferRepository;
+    private final StorageLifecycleService storageLifecycleService;
+    private final RateLimitService rateLimitService;
+    private final TransferBatchWriter transferBatchWriter;
+    private final TransferStatusService transferStatusService;
+    private final ClusterService clusterService;
+    private final AuditService auditService;
+    private final SmallFileBufferPool smallFileBufferPool;
 
     @PostMapping
     public ResponseEntity<TransferResponse> initiateTransfer(
             @RequestParam("file") MultipartFile file,
-            @RequestParam("receiver") String receiverUsername) throws IOException {
+            @RequestParam("receiver") String receiverUsername,
+            @RequestParam(value = "baseTransferId", required = false) UUID baseTransferId) throws IOException {
 
         String senderUsername = SecurityContextHolder.getContext().getAuthentication().getName();
 
@@ -40,60 +58,158 @@ public class TransferController {
             return ResponseEntity.badRequest().build();
         }
 
-        // 1. Store the raw file temporarily
-        String storedFileName = fileStorageService.store(file);
+        // Delta mode: the base must be an earlier completed revision between the same two
+        // parties. If its retention window has passed the whole file is sent instead.
+        if (baseTransferId != null) {
+            Optional<Transfer> baseOptional = transferRepository.findById(baseTransferId);
+            if (baseOptional.isEmpty()) {
+                return ResponseEntity.badRequest().build();
+            }
+            Transfer base = baseOptional.get();
+            if (!base.getSenderUsername().equals(senderUsername) || !base.getReceiverUsername().equals(receiverUsername)) {
+                return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+            }
+            if (base.getStatus() != TransferStatus.COMPLETED && base.getStatus() != TransferStatus.EXPIRED) {
+                return ResponseEntity.status(HttpStatus.CONFLICT).build();
+            }
+        }
+
+        long waitNanos = rateLimitService.tryAcquireTransferStart(senderUsername);
+        if (waitNanos > 0) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, RateLimitService.retryAfterSeconds(waitNanos))
+                .build();
+        }
+
+        // Refuse uploads that would push the file store below its free-space watermark
+        if (!storageLifecycleService.admit(file.getSize())) {
+            return ResponseEntity.status(HttpStatus.INSUFFICIENT_STORAGE).build();
+        }
+
+        // Cap concurrent transfers per sender; the slot is released when processing finishes
+        if (!rateLimitService.tryAcquireTransferSlot(senderUsername)) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .build();
+        }
+
+        // Small files stay in memory from upload to final storage (if a buffer is free)
+        byte[] buffer = smallFileBufferPool.tryAcquire(file.getSize());
+        if (buffer != null) {
+            return initiateSmallTransfer(file, buffer, senderUsername, receiverUsername, baseTransferId);
+        }
+
+        Transfer transfer = newTransfer(file, senderUsername, receiverUsername, baseTransferId);
+        try {
+            // 1. Store the raw file temporarily
+            transfer.setStoredFileName(fileStorageService.store(file.getInputStream(), file.getOriginalFilename()));
+
+            // 2. Create a record in the database
+            transferBatchWriter.insert(transfer);
+            transferStatusService.cacheCreated(transfer);
+            auditService.record(transfer.getId(), AuditEventType.TRANSFER_CREATED, true, senderUsername, describe(file, transfer));
+        } catch (IOException | RuntimeException e) {
+            // Don't leave the upload filling the store until the reconciler's grace period has passed
+            storageLifecycleService.releaseUpload(transfer.getStoredFileName());
+            rateLimitService.releaseTransferSlot(senderUsername);
+            throw e;
+        }
+
+        // 3. Trigger the async processing
+        protocolService.processTransfer(transfer);
+
+        return new ResponseEntity<>(
+            new TransferResponse(transfer.getId(), "Transfer initiated. Check status endpoint for progress.", TransferStatus.PENDING),
+            HttpStatus.ACCEPTED
+        );
+    }
+
+    /**
+     * Small-file fast path. The upload is read into a pooled buffer and the protocol runs
+     * right here, so the decrypted file is the only disk write, and the row is inserted once
+     * in its final state, group-committed with other concurrent uploads. The transfer is
+     * finished by the time this returns, so the response carries its final status: 201 if
+     * it completed, 422 if it failed.
+     */
+    private ResponseEntity<TransferResponse> initiateSmallTransfer(MultipartFile file, byte[] buffer, String senderUsername,
+                                                                   String receiverUsername, UUID baseTransferId) throws IOException {
+        try {
+            int length = SmallFileBufferPool.readFully(file.getInputStream(), buffer);
+            Transfer transfer = newTransfer(file, senderUsername, receiverUsername, baseTransferId);
+            transfer.setStatus(TransferStatus.PROCESSING);
+            auditService.record(transfer.getId(), AuditEventType.TRANSFER_CREATED, true, senderUsername, describe(file, transfer) + ", in memory");
+
+            protocolService.processInMemory(transfer, buffer, length);
+            try {
+                transferBatchWriter.insert(transfer);
+            } catch (RuntimeException e) {
+                // Without a row the decrypted file is unreachable, and the trail must not end at a completed protocol
+                storageLifecycleService.discardDecrypted(transfer.getDecryptedFileName());
+                auditService.record(transfer.getId(), AuditEventType.TRANSFER_COMPLETED, false, null,
+                    "Transfer record could not be saved: " + e.getClass().getSimpleName() + ": " + e.getMessage());
+                throw e;
+            }
+            transferStatusService.cacheCreated(transfer);
+
+            if (transfer.getStatus() != TransferStatus.COMPLETED) {
+                // The row exists and can be polled, but the upload itself did not succeed
+                return new ResponseEntity<>(
+                    new TransferResponse(transfer.getId(), "Transfer failed: " + transfer.getFailureReason(), transfer.getStatus()),
+                    HttpStatus.UNPROCESSABLE_ENTITY
+                );
+            }
+            auditService.record(transfer.getId(), AuditEventType.TRANSFER_COMPLETED, true, null, null);
+            return new ResponseEntity<>(
+                new TransferResponse(transfer.getId(), "Transfer completed.", transfer.getStatus()),
+                HttpStatus.CREATED
+            );
+        } finally {
+            smallFileBufferPool.release(buffer);
+            rateLimitService.releaseTransferSlot(senderUsername);
+        }
+    }
 
-        // 2. Create a record in the database
+    private Transfer newTransfer(MultipartFile file, String senderUsername, String receiverUsername, UUID baseTransferId) {
         Transfer transfer = new Transfer();
         transfer.setId(UUID.randomUUID());
         transfer.setSenderUsername(senderUsername);
         transfer.setReceiverUsername(receiverUsername);
         transfer.setOriginalFileName(file.getOriginalFilename());
-        transfer.setStoredFileName(storedFileName);
+        transfer.setBaseTransferId(baseTransferId);
         transfer.setStatus(TransferStatus.PENDING);
         transfer.setCreatedAt(Instant.now());
-        transferRepository.save(transfer);
-
-        // 3. Trigger the async processing
-        protocolService.processTransfer(transfer.getId(), senderUsername, receiverUsername);
+        transfer.setStorageNode(clusterService.getLocalNodeId());
+        return transfer;
+    }
 
-        return new ResponseEntity<>(
-            new TransferResponse(transfer.getId(), "Transfer initiated. Check status endpoint for progress."),
-            HttpStatus.ACCEPTED
-        );
+    private static String describe(MultipartFile file, Transfer transfer) {
+        return "To " + transfer.getReceiverUsername() + ", " + file.getSize() + " bytes"
+            + (transfer.getBaseTransferId() != null ? ", delta against " + transfer.getBaseTransferId() : "");
     }
 
     @GetMapping("/{id}")
     public ResponseEntity<TransferStatusResponse> getTransferStatus(@PathVariable UUID id) {
         String currentUsername = SecurityContextHolder.getContext().getAuthentication().getName();
-        Optional<Transfer> transferOptional = transferRepository.findById(id);
+        // Served from the status cache; only a miss reaches the database
+        TransferStatusResponse response = transferStatusService.getStatus(id);
 
-        if (transferOptional.isEmpty()) {
+        if (response == null) {
             return ResponseEntity.notFound().build();
         }
-        
-        Transfer transfer = transferOptional.get();
 
         // Authorization check: only sender or receiver can view status
-        if (!transfer.getSenderUsername().equals(currentUsername) && !transfer.getReceiverUsername().equals(currentUsername)) {
+        if (!response.getSender().equals(currentUsername) && !response.getReceiver().equals(currentUsername)) {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
         }
 
-        TransferStatusResponse response = TransferStatusResponse.builder()
-            .id(transfer.getId())
-            .sender(transfer.getSenderUsername())
-            .receiver(transfer.getReceiverUsername())
-            .fileName(transfer.getOriginalFileName())
-            .status(transfer.getStatus())
-            .failureReason(transfer.getFailureReason())
-            .createdAt(transfer.getCreatedAt())
-            .build();
-            
         return ResponseEntity.ok(response);
     }
 
     @GetMapping("/{id}/content")
-    public ResponseEntity<Resource> downloadDecryptedFile(@PathVariable UUID id) {
+    public ResponseEntity<Resource> downloadDecryptedFile(
+            @PathVariable UUID id,
+            @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization,
+            @RequestHeader(value = ClusterService.FORWARDED_HEADER, required = false) String forwardedBy) {
         String currentUsername = SecurityContextHolder.getContext().getAuthentication().getName();
         Optional<Transfer> transferOptional = transferRepository.findById(id);
 
@@ -105,16 +221,33 @@ public class TransferController {
 
         // Authorization check: only receiver can download
         if (!transfer.getReceiverUsername().equals(currentUsername)) {
+            auditService.record(id, AuditEventType.DOWNLOAD, false, currentUsername, "Denied: not the receiver");
             return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
         }
 
         // Status check
+        if (transfer.getStatus() == TransferStatus.EXPIRED) {
+            return ResponseEntity.status(HttpStatus.GONE).build(); // 410 Gone: the retention window has passed
+        }
         if (transfer.getStatus() != TransferStatus.COMPLETED) {
             return ResponseEntity.status(HttpStatus.CONFLICT).build(); // 409 Conflict: The request could not be completed due to a conflict with the current state of the resource.
         }
 
+        // The file lives in the shard of the node that processed the transfer
+        if (!clusterService.isLocal(transfer.getStorageNode())) {
+            if (forwardedBy != null) {
+                return ResponseEntity.status(HttpStatus.LOOP_DETECTED).build();
+            }
+            return clusterService.forwardGet(transfer.getStorageNode(), "/api/transfers/" + id + "/content", authorization);
+        }
+
         try {
             Resource resource = fileStorageService.loadAsResource(transfer.getDecryptedFileName());
+            // The first download starts the post-download retention clock
+            if (transfer.getDownloadedAt() == null) {
+                transferStatusService.markDownloaded(transfer.getId());
+            }
+            auditService.record(id, AuditEventType.DOWNLOAD, true, currentUsername, null);
             return ResponseEntity.ok()
                 .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + transfer.getOriginalFileName() + "\"")
                 .body(resource);
@@ -123,4 +256,21 @@ public class TransferController {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
     }
+
+    @GetMapping("/{id}/audit")
+    public ResponseEntity<List<AuditEventResponse>> getAuditHistory(@PathVariable UUID id) {
+        String currentUsername = SecurityContextHolder.getContext().getAuthentication().getName();
+        TransferStatusResponse transfer = transferStatusService.getStatus(id);
+
+        if (transfer == null) {
+            return ResponseEntity.notFound().build();
+        }
+
+        // Same parties as the status endpoint
+        if (!transfer.getSender().equals(currentUsername) && !transfer.getReceiver().equals(currentUsername)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+
+        return ResponseEntity.ok(auditService.history(id));
+    }
 }
\ No newline at end of file
@@ -0,0 +1,22 @@
+package com.example.securetransfer.dto;
+
+import com.example.securetransfer.model.AuditEventType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AuditEventResponse {
+    private AuditEventType type;
+    private boolean success;
+    private String actor;
+    private String node;
+    private String detail;
+    private Instant occurredAt;
+}
@@ -1,14 +1,17 @@
 package com.example.securetransfer.dto;
 
+import com.example.securetransfer.model.TransferStatus;
 import java.util.UUID;
 
 public class TransferResponse {
     private UUID transferId;
     private String message;
+    private TransferStatus status;
 
-    public TransferResponse(UUID transferId, String message) {
+    public TransferResponse(UUID transferId, String message, TransferStatus status) {
         this.transferId = transferId;
         this.message = message;
+        this.status = status;
     }
 
     // Getters and Setters
@@ -16,4 +19,6 @@ public class TransferResponse {
     public void setTransferId(UUID transferId) { this.transferId = transferId; }
     public String getMessage() { return message; }
     public void setMessage(String message) { this.message = message; }
+    public TransferStatus getStatus() { return status; }
+    public void setStatus(TransferStatus status) { this.status = status; }
 }
\ No newline at end of file
@@ -12,6 +12,7 @@ public class TransferStatusResponse {
     private TransferStatus status;
     private String failureReason;
     private Instant createdAt;
+    private UUID baseTransferId;
     
     // Private constructor for the builder
     private TransferStatusResponse(Builder builder) {
@@ -22,6 +23,7 @@ public class TransferStatusResponse {
         this.status = builder.status;
         this.failureReason = builder.failureReason;
         this.createdAt = builder.createdAt;
+        this.baseTransferId = builder.baseTransferId;
     }
     
     public static Builder builder() {
@@ -36,6 +38,7 @@ public class TransferStatusResponse {
     public TransferStatus getStatus() { return status; }
     public String getFailureReason() { return failureReason; }
     public Instant getCreatedAt() { return createdAt; }
+    public UUID getBaseTransferId() { return baseTransferId; }
 
     // Static Builder Class
     public static class Builder {
@@ -46,6 +49,7 @@ public class TransferStatusResponse {
         private TransferStatus status;
         private String failureReason;
         private Instant createdAt;
+        private UUID baseTransferId;
 
         public Builder id(UUID id) { this.id = id; return this; }
         public Builder sender(String sender) { this.sender = sender; return this; }
@@ -54,6 +58,7 @@ public class TransferStatusResponse {
         public Builder status(TransferStatus status) { this.status = status; return this; }
         public Builder failureReason(String failureReason) { this.failureReason = failureReason; return this; }
         public Builder createdAt(Instant createdAt) { this.createdAt = createdAt; return this; }
+        public Builder baseTransferId(UUID baseTransferId) { this.baseTransferId = baseTransferId; return this; }
         
         public TransferStatusResponse build() {
             return new TransferStatusResponse(this);
@@ -0,0 +1,49 @@
+package com.example.securetransfer.model;
+
+import jakarta.persistence.*;
+import java.time.Instant;
+import java.util.UUID;
+
+@Entity
+@Table(name = "audit_events", indexes = @Index(name = "idx_audit_events_transfer", columnList = "transferId"))
+public class AuditEvent {
+    // Sequence ids are handed out in blocks, so batches of events insert as one JDBC batch
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "audit_event_seq")
+    @SequenceGenerator(name = "audit_event_seq", sequenceName = "audit_event_seq", allocationSize = 100)
+    private Long id;
+
+    private UUID transferId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private AuditEventType type;
+
+    private boolean success;
+    private String actor;
+    private String node;
+
+    @Column(length = 1000)
+    private String detail;
+
+    @Column(nullable = false)
+    private Instant occurredAt;
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    public UUID getTransferId() { return transferId; }
+    public void setTransferId(UUID transferId) { this.transferId = transferId; }
+    public AuditEventType getType() { return type; }
+    public void setType(AuditEventType type) { this.type = type; }
+    public boolean isSuccess() { return success; }
+    public void setSuccess(boolean success) { this.success = success; }
+    public String getActor() { return actor; }
+    public void setActor(String actor) { this.actor = actor; }
+    public String getNode() { return node; }
+    public void setNode(String node) { this.node = node; }
+    public String getDetail() { return detail; }
+    public void setDetail(String detail) { this.detail = detail; }
+    public Instant getOccurredAt() { return occurredAt; }
+    public void setOccurredAt(Instant occurredAt) { this.occurredAt = occurredAt; }
+}
@@ -0,0 +1,13 @@
+package com.example.securetransfer.model;
+
+public enum AuditEventType {
+    TRANSFER_CREATED,
+    HANDSHAKE,
+    KEY_EXCHANGE,
+    INTEGRITY_CHECK,
+    TRANSFER_COMPLETED,
+    DOWNLOAD,
+    EXPIRED,
+    // Written by the audit subsystem itself when events had to be dropped
+    EVENTS_DROPPED
+}
@@ -8,11 +8,21 @@ import java.util.UUID;
 public class Transfer {
     @Id
     private UUID id;
+
+    // A null version tells Spring Data a new row is an insert, not a merge. Rows are only ever
+    // changed by the guarded UPDATEs in TransferRepository, so nothing compares it today.
+    @Version
+    private Long version;
+
     private String senderUsername;
     private String receiverUsername;
     private String originalFileName;
     private String storedFileName;
     private String decryptedFileName;
+    private UUID baseTransferId;
+
+    // Cluster node whose file store holds this transfer's files (see ClusterService)
+    private String storageNode;
 
     @Enumerated(EnumType.STRING)
     private TransferStatus status;
@@ -20,10 +30,13 @@ public class Transfer {
     private String failureReason;
     private Instant createdAt;
     private Instant completedAt;
+    private Instant downloadedAt;
 
     // Getters and Setters
     public UUID getId() { return id; }
     public void setId(UUID id) { this.id = id; }
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
     public String getSenderUsername() { return senderUsername; }
     public void setSenderUsername(String senderUsername) { this.senderUsername = senderUsername; }
     public String getReceiverUsername() { return receiverUsername; }
@@ -34,6 +47,10 @@ public class Transfer {
     public void setStoredFileName(String storedFileName) { this.storedFileName = storedFileName; }
     public String getDecryptedFileName() { return decryptedFileName; }
     public void setDecryptedFileName(String decryptedFileName) { this.decryptedFileName = decryptedFileName; }
+    public UUID getBaseTransferId() { return baseTransferId; }
+    public void setBaseTransferId(UUID baseTransferId) { this.baseTransferId = baseTransferId; }
+    public String getStorageNode() { return storageNode; }
+    public void setStorageNode(String storageNode) { this.storageNode = storageNode; }
     public TransferStatus getStatus() { return status; }
     public void setStatus(TransferStatus status) { this.status = status; }
     public String getFailureReason() { return failureReason; }
@@ -42,4 +59,6 @@ public class Transfer {
     public void setCreatedAt(Instant createdAt) { this.createdAt = createdAt; }
     public Instant getCompletedAt() { return completedAt; }
     public void setCompletedAt(Instant completedAt) { this.completedAt = completedAt; }
+    public Instant getDownloadedAt() { return downloadedAt; }
+    public void setDownloadedAt(Instant downloadedAt) { this.downloadedAt = downloadedAt; }
 }
\ No newline at end of file
@@ -0,0 +1,39 @@
+package com.example.securetransfer.model;
+
+import jakarta.persistence.*;
+import java.time.Instant;
+
+@Entity
+@Table(name = "user_keys")
+public class UserKeyPair {
+    @Id
+    private String username;
+
+    // Null until inserted, so save() persists instead of merging over another node's keys
+    @Version
+    private Long version;
+
+    // X.509 encoded
+    @Lob
+    @Column(nullable = false)
+    private byte[] publicKey;
+
+    // PKCS#8 encoded, sealed with AES-GCM (see KeyManagementService)
+    @Lob
+    @Column(nullable = false)
+    private byte[] wrappedPrivateKey;
+
+    private Instant createdAt;
+
+    // Getters and Setters
+    public String getUsername() { return username; }
+    public void setUsername(String username) { this.username = username; }
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
+    public byte[] getPublicKey() { return publicKey; }
+    public void setPublicKey(byte[] publicKey) { this.publicKey = publicKey; }
+    public byte[] getWrappedPrivateKey() { return wrappedPrivateKey; }
+    public void setWrappedPrivateKey(byte[] wrappedPrivateKey) { this.wrappedPrivateKey = wrappedPrivateKey; }
+    public Instant getCreatedAt() { return createdAt; }
+    public void setCreatedAt(Instant createdAt) { this.createdAt = createdAt; }
+}
@@ -0,0 +1,10 @@
+package com.example.securetransfer.repository;
+
+import com.example.securetransfer.model.AuditEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import java.util.List;
+import java.util.UUID;
+
+public interface AuditEventRepository extends JpaRepository<AuditEvent, Long> {
+    List<AuditEvent> findByTransferIdOrderByOccurredAtAscIdAsc(UUID transferId);
+}
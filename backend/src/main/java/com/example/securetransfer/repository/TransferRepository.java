@@ -1,7 +1,75 @@
 package com.example.securetransfer.repository;
 
 import com.example.securetransfer.model.Transfer;
+import com.example.securetransfer.model.TransferStatus;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
 import java.util.UUID;
 
-public interface TransferRepository extends JpaRepository<Transfer, UUID> {}
\ No newline at end of file
+public interface TransferRepository extends JpaRepository<Transfer, UUID> {
+
+    // Completed transfers on one node whose decrypted file has outlived its retention window
+    @Query("select t from Transfer t where t.status = com.example.securetransfer.model.TransferStatus.COMPLETED"
+            + " and t.storageNode = :storageNode"
+            + " and ((t.downloadedAt is not null and t.downloadedAt < :downloadedBefore)"
+            + " or (t.downloadedAt is null and t.completedAt < :completedBefore))"
+            + " order by t.completedAt")
+    List<Transfer> findExpiredDecrypted(@Param("storageNode") String storageNode,
+                                        @Param("downloadedBefore") Instant downloadedBefore,
+                                        @Param("completedBefore") Instant completedBefore,
+                                        Pageable pageable);
+
+    @Query("select t.storedFileName from Transfer t where t.storedFileName is not null and t.status in :statuses")
+    List<String> findStoredFileNamesByStatusIn(@Param("statuses") Collection<TransferStatus> statuses);
+
+    // Rows of [id, decryptedFileName, completedAt] for the completed transfers stored on one node
+    @Query("select t.id, t.decryptedFileName, t.completedAt from Transfer t where t.decryptedFileName is not null"
+            + " and t.status = com.example.securetransfer.model.TransferStatus.COMPLETED and t.storageNode = :storageNode")
+    List<Object[]> findDecryptedFileNames(@Param("storageNode") String storageNode);
+
+    // Transfers from before cluster mode recorded no node
+    @Transactional
+    @Modifying
+    @Query("update Transfer t set t.storageNode = :storageNode, t.version = coalesce(t.version, 0) + 1 where t.storageNode is null")
+    int assignUnownedTo(@Param("storageNode") String storageNode);
+
+    // Targeted status transitions: a single UPDATE instead of loading and merging the entity.
+    // The status condition in each WHERE clause is the concurrency check: of two racing
+    // transitions only one matches the row and the other gets an update count of 0.
+    // The version bump only keeps a stale entity from ever being merged over a transition.
+
+    @Transactional
+    @Modifying
+    @Query("update Transfer t set t.status = com.example.securetransfer.model.TransferStatus.COMPLETED,"
+            + " t.decryptedFileName = :decryptedFileName, t.completedAt = :completedAt, t.storedFileName = null,"
+            + " t.version = coalesce(t.version, 0) + 1 where t.id = :id"
+            + " and t.status in (com.example.securetransfer.model.TransferStatus.PENDING, com.example.securetransfer.model.TransferStatus.PROCESSING)")
+    int markCompleted(@Param("id") UUID id, @Param("decryptedFileName") String decryptedFileName, @Param("completedAt") Instant completedAt);
+
+    @Transactional
+    @Modifying
+    @Query("update Transfer t set t.status = com.example.securetransfer.model.TransferStatus.FAILED,"
+            + " t.failureReason = :failureReason, t.storedFileName = null, t.version = coalesce(t.version, 0) + 1 where t.id = :id"
+            + " and t.status in (com.example.securetransfer.model.TransferStatus.PENDING, com.example.securetransfer.model.TransferStatus.PROCESSING)")
+    int markFailed(@Param("id") UUID id, @Param("failureReason") String failureReason);
+
+    @Transactional
+    @Modifying
+    @Query("update Transfer t set t.downloadedAt = :downloadedAt, t.version = coalesce(t.version, 0) + 1"
+            + " where t.id = :id and t.downloadedAt is null")
+    int markDownloaded(@Param("id") UUID id, @Param("downloadedAt") Instant downloadedAt);
+
+    @Transactional
+    @Modifying
+    @Query("update Transfer t set t.status = com.example.securetransfer.model.TransferStatus.EXPIRED,"
+            + " t.decryptedFileName = null, t.version = coalesce(t.version, 0) + 1 where t.id in :ids"
+            + " and t.status = com.example.securetransfer.model.TransferStatus.COMPLETED")
+    int markExpired(@Param("ids") Collection<UUID> ids);
+}
\ No newline at end of file
@@ -0,0 +1,7 @@
+package com.example.securetransfer.repository;
+
+import com.example.securetransfer.model.UserKeyPair;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface UserKeyPairRepository extends JpaRepository<UserKeyPair, String> {
+}
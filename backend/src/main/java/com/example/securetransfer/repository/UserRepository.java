@@ -0,0 +1,11 @@
+package com.example.securetransfer.repository;
+
+import com.example.securetransfer.model.User;
+import org.springframework.data.jpa.repository.JpaRepository;
+import java.util.Optional;
+import java.util.UUID;
+
+public interface UserRepository extends JpaRepository<User, UUID> {
+    Optional<User> findByUsername(String username);
+    boolean existsByUsername(String username);
+}
@@ -0,0 +1,211 @@
+package com.example.securetransfer.service;
+
+import com.example.securetransfer.dto.AuditEventResponse;
+import com.example.securetransfer.model.AuditEvent;
+import com.example.securetransfer.model.AuditEventType;
+import com.example.securetransfer.repository.AuditEventRepository;
+import com.example.securetransfer.util.MpscRingBuffer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Durable audit trail of protocol events. {@link #record} only appends to a lock-free ring,
+ * so the protocol and request threads never wait on the database; a background writer drains
+ * the ring and inserts events in batches (see {@code hibernate.jdbc.batch_size}).
+ *
+ * <p>Memory is bounded by the ring's capacity. When it is full the overflow policy decides:
+ * {@code DROP} discards the event at once, {@code BLOCK} makes the caller wait up to
+ * {@code audit.overflow.block-timeout} for space and then discards it. Discarded events are
+ * counted and the writer records the count as an {@link AuditEventType#EVENTS_DROPPED}
+ * event. That entry is the only trace of what was lost: the dropped events themselves are
+ * gone, so a trail that must be complete needs {@code BLOCK} and a generous timeout.
+ */
+@Service
+public class AuditService {
+
+    private static final Logger log = LoggerFactory.getLogger(AuditService.class);
+    private static final long RETRY_BACKOFF_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    public enum OverflowPolicy { DROP, BLOCK }
+
+    private final AuditEventRepository auditEventRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ClusterService clusterService;
+    private final boolean enabled;
+    private final MpscRingBuffer<AuditEvent> ring;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final OverflowPolicy overflowPolicy;
+    private final long blockTimeoutNanos;
+
+    private final AtomicLong dropped = new AtomicLong();
+    private final Thread writer = new Thread(this::run, "audit-writer");
+    private volatile boolean running = true;
+
+    public AuditService(
+            AuditEventRepository auditEventRepository,
+            TransactionTemplate transactionTemplate,
+            ClusterService clusterService,
+            @Value("${audit.enabled:true}") boolean enabled,
+            @Value("${audit.buffer-capacity:8192}") int bufferCapacity,
+            @Value("${audit.batch-size:500}") int batchSize,
+            @Value("${audit.flush-interval:200ms}") Duration flushInterval,
+            @Value("${audit.overflow.policy:DROP}") OverflowPolicy overflowPolicy,
+            @Value("${audit.overflow.block-timeout:100ms}") Duration blockTimeout) {
+        this.auditEventRepository = auditEventRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.clusterService = clusterService;
+        this.enabled = enabled;
+        this.ring = new MpscRingBuffer<>(bufferCapacity);
+        this.batchSize = batchSize;
+        this.flushIntervalNanos = flushInterval.toNanos();
+        this.overflowPolicy = overflowPolicy;
+        this.blockTimeoutNanos = blockTimeout.toNanos();
+    }
+
+    @PostConstruct
+    public void start() {
+        if (enabled) {
+            writer.setDaemon(true);
+            writer.start();
+        }
+    }
+
+    /**
+     * Appends an event for the given transfer. Never touches the database; returns
+     * {@code false} if the event had to be dropped.
+     */
+    public boolean record(UUID transferId, AuditEventType type, boolean success, String actor, String detail) {
+        if (!enabled) {
+            return false;
+        }
+        AuditEvent event = new AuditEvent();
+        event.setTransferId(transferId);
+        event.setType(type);
+        event.setSuccess(success);
+        event.setActor(actor);
+        event.setNode(clusterService.getLocalNodeId());
+        event.setDetail(detail != null && detail.length() > 1000 ? detail.substring(0, 1000) : detail);
+        event.setOccurredAt(Instant.now());
+
+        if (ring.offer(event)) {
+            return true;
+        }
+        if (overflowPolicy == OverflowPolicy.BLOCK && running) {
+            long deadline = System.nanoTime() + blockTimeoutNanos;
+            while (System.nanoTime() < deadline) {
+                LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(100));
+                if (ring.offer(event)) {
+                    return true;
+                }
+            }
+        }
+        dropped.incrementAndGet();
+        return false;
+    }
+
+    // A transfer's events in the order they happened. Events reach the table within about one flush interval.
+    public List<AuditEventResponse> history(UUID transferId) {
+        return auditEventRepository.findByTransferIdOrderByOccurredAtAscIdAsc(transferId).stream()
+            .map(event -> AuditEventResponse.builder()
+                .type(event.getType())
+                .success(event.isSuccess())
+                .actor(event.getActor())
+                .node(event.getNode())
+                .detail(event.getDetail())
+                .occurredAt(event.getOccurredAt())
+                .build())
+            .toList();
+    }
+
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        LockSupport.unpark(writer);
+        writer.join(TimeUnit.SECONDS.toMillis(10));
+    }
+
+    private void run() {
+        List<AuditEvent> batch = new ArrayList<>(batchSize + 1);
+        long reportedDropped = 0;
+        // The EVENTS_DROPPED entry of the batch not yet written. Drops while a failing flush is
+        // retried are added to it, so the batch holds at most one and stays within batchSize + 1.
+        AuditEvent droppedReport = null;
+        long droppedInReport = 0;
+        while (running || ring.size() > 0 || !batch.isEmpty()) {
+            ring.drainTo(batch, batchSize - batch.size());
+            long droppedNow = dropped.get();
+            if (droppedNow > reportedDropped) {
+                log.warn("Audit buffer overflowed, dropped {} events", droppedNow - reportedDropped);
+                if (droppedReport == null) {
+                    droppedReport = droppedEvent();
+                    droppedInReport = 0;
+                    batch.add(droppedReport);
+                }
+                droppedInReport += droppedNow - reportedDropped;
+                droppedReport.setDetail(droppedInReport + " events dropped, overflow policy " + overflowPolicy);
+                reportedDropped = droppedNow;
+            }
+            if (batch.isEmpty()) {
+                LockSupport.parkNanos(flushIntervalNanos);
+                continue;
+            }
+            boolean partial = batch.size() < batchSize;
+            if (!flush(batch)) {
+                // Keep the batch and retry; meanwhile the ring absorbs new events up to its capacity
+                if (!running) {
+                    log.error("Discarding {} audit events on shutdown after a failed flush", batch.size());
+                    return;
+                }
+                LockSupport.parkNanos(RETRY_BACKOFF_NANOS);
+                continue;
+            }
+            batch.clear();
+            droppedReport = null;
+            if (partial && running && ring.size() < ring.capacity() / 2) {
+                // Let a quiet period accumulate into the next batch, unless producers are
+                // already close to overflowing the ring
+                LockSupport.parkNanos(flushIntervalNanos);
+            }
+        }
+    }
+
+    private boolean flush(List<AuditEvent> batch) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> auditEventRepository.saveAll(batch));
+            return true;
+        } catch (RuntimeException e) {
+            log.warn("Writing {} audit events failed: {}", batch.size(), e.getMessage());
+            // Ids handed out to the failed insert are not reused; let the retry assign new ones
+            batch.forEach(event -> event.setId(null));
+            return false;
+        }
+    }
+
+    private AuditEvent droppedEvent() {
+        AuditEvent event = new AuditEvent();
+        event.setType(AuditEventType.EVENTS_DROPPED);
+        event.setSuccess(false);
+        event.setNode(clusterService.getLocalNodeId());
+        event.setOccurredAt(Instant.now());
+        return event;
+    }
+}
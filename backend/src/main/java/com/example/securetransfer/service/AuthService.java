@@ -2,27 +2,76 @@ package com.example.securetransfer.service;
 
 import com.example.securetransfer.dto.AuthRequest;
 import com.example.securetransfer.dto.AuthResponse;
-import lombok.RequiredArgsConstructor;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.stereotype.Service;
 
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
 @Service
-@RequiredArgsConstructor
 public class AuthService {
 
     private final AuthenticationManager authenticationManager;
-    private final UserDetailsService userDetailsService;
     private final JwtService jwtService;
 
+    // BCrypt is deliberately slow; verifications run on their own small pool so a burst of
+    // logins queues here (and is rejected once the queue is full) instead of tying up
+    // every request thread. Not a Spring bean, so @Async keeps using the default executor.
+    private final ThreadPoolExecutor passwordVerificationPool;
+
+    public AuthService(
+            AuthenticationManager authenticationManager,
+            JwtService jwtService,
+            @Value("${auth.password-verification.threads:0}") int threads,
+            @Value("${auth.password-verification.queue-capacity:256}") int queueCapacity) {
+        this.authenticationManager = authenticationManager;
+        this.jwtService = jwtService;
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        this.passwordVerificationPool = new ThreadPoolExecutor(
+                poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                namedThreads("bcrypt-"),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
     public AuthResponse authenticate(AuthRequest request) {
-        authenticationManager.authenticate(
+        Authentication authentication = authenticationManager.authenticate(
                 new UsernamePasswordAuthenticationToken(request.getUsername(), request.getPassword())
         );
-        final UserDetails userDetails = userDetailsService.loadUserByUsername(request.getUsername());
+        final UserDetails userDetails = (UserDetails) authentication.getPrincipal();
         final String jwt = jwtService.generateToken(userDetails);
         return new AuthResponse(jwt);
     }
+
+    /**
+     * Runs {@link #authenticate} on the password verification pool.
+     *
+     * @throws java.util.concurrent.RejectedExecutionException if the pool's queue is full
+     */
+    public CompletableFuture<AuthResponse> authenticateAsync(AuthRequest request) {
+        return CompletableFuture.supplyAsync(() -> authenticate(request), passwordVerificationPool);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        passwordVerificationPool.shutdown();
+    }
+
+    private static ThreadFactory namedThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
 }
\ No newline at end of file
@@ -0,0 +1,145 @@
+package com.example.securetransfer.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.URI;
+import java.net.UnknownHostException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Cluster membership for running several backend processes against one shared database.
+ * Each node keeps the files of the transfers it accepted in its own file store (its shard)
+ * and records its id on the transfer; requests that need those files are forwarded to the
+ * owning node. Without {@code cluster.node-id} the backend runs as the single node "local".
+ * Transfers from before cluster mode have no node recorded; they belong to
+ * {@code cluster.legacy-node}, which assigns them to itself when it starts.
+ */
+@Service
+public class ClusterService {
+
+    private static final Logger log = LoggerFactory.getLogger(ClusterService.class);
+
+    // Set on forwarded requests so a misconfigured cluster can't bounce a request around
+    public static final String FORWARDED_HEADER = "X-Forwarded-By-Node";
+    private static final List<String> PROXIED_HEADERS = List.of(
+            HttpHeaders.CONTENT_TYPE, HttpHeaders.CONTENT_LENGTH, HttpHeaders.CONTENT_DISPOSITION, HttpHeaders.RETRY_AFTER);
+
+    private final String localNodeId;
+    private final String legacyNodeId;
+    private final Map<String, URI> nodes = new HashMap<>();
+    private final HttpClient httpClient;
+
+    public ClusterService(
+            @Value("${cluster.node-id:local}") String localNodeId,
+            @Value("${cluster.nodes:}") String nodes,
+            @Value("${cluster.legacy-node:local}") String legacyNodeId,
+            @Value("${cluster.forward.connect-timeout:2s}") Duration connectTimeout) {
+        this.localNodeId = localNodeId;
+        this.legacyNodeId = legacyNodeId;
+        // Format: node-a=http://host-a:8080,node-b=http://host-b:8080
+        for (String entry : nodes.split(",")) {
+            if (entry.isBlank()) {
+                continue;
+            }
+            String[] parts = entry.trim().split("=", 2);
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Invalid cluster.nodes entry: " + entry);
+            }
+            this.nodes.put(parts[0].trim(), URI.create(parts[1].trim()));
+        }
+        this.httpClient = HttpClient.newBuilder().connectTimeout(connectTimeout).build();
+    }
+
+    public String getLocalNodeId() {
+        return localNodeId;
+    }
+
+    public boolean isClustered() {
+        return !nodes.isEmpty();
+    }
+
+    /**
+     * Whether a request was forwarded by another node of the cluster: it carries the
+     * forwarding header naming a configured node, and it comes from that node's address.
+     */
+    public boolean isForwardedByPeer(String forwardedBy, String remoteAddress) {
+        URI peer = forwardedBy != null && !localNodeId.equals(forwardedBy) ? nodes.get(forwardedBy) : null;
+        if (peer == null || peer.getHost() == null || remoteAddress == null) {
+            return false;
+        }
+        try {
+            // Lookups go through the JVM's DNS cache
+            InetAddress remote = InetAddress.getByName(remoteAddress);
+            for (InetAddress address : InetAddress.getAllByName(peer.getHost())) {
+                if (address.equals(remote)) {
+                    return true;
+                }
+            }
+        } catch (UnknownHostException e) {
+            log.debug("Could not resolve cluster node {}: {}", forwardedBy, e.getMessage());
+        }
+        return false;
+    }
+
+    public boolean isLocal(String nodeId) {
+        return localNodeId.equals(owner(nodeId));
+    }
+
+    // Whether this node holds the files of transfers that have no node recorded
+    public boolean ownsLegacyTransfers() {
+        return localNodeId.equals(legacyNodeId);
+    }
+
+    /**
+     * Replays a GET on the node that owns the data and streams its response back, status and
+     * body unchanged. The caller's token goes along, so the owner does its own authorization.
+     */
+    public ResponseEntity<Resource> forwardGet(String nodeId, String path, String authorization) {
+        URI base = nodes.get(owner(nodeId));
+        if (base == null) {
+            log.warn("No address configured for cluster node {}", nodeId);
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        HttpRequest.Builder request = HttpRequest.newBuilder(base.resolve(path))
+                .header(FORWARDED_HEADER, localNodeId)
+                .GET();
+        if (authorization != null) {
+            request.header(HttpHeaders.AUTHORIZATION, authorization);
+        }
+        try {
+            HttpResponse<InputStream> response = httpClient.send(request.build(), HttpResponse.BodyHandlers.ofInputStream());
+            ResponseEntity.BodyBuilder builder = ResponseEntity.status(response.statusCode());
+            for (String header : PROXIED_HEADERS) {
+                response.headers().firstValue(header).ifPresent(value -> builder.header(header, value));
+            }
+            return builder.body(new InputStreamResource(response.body()));
+        } catch (IOException e) {
+            log.warn("Forwarding {} to node {} failed: {}", path, nodeId, e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_GATEWAY).build();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+    }
+
+    private String owner(String nodeId) {
+        return nodeId != null ? nodeId : legacyNodeId;
+    }
+}
@@ -6,11 +6,17 @@ import org.springframework.core.io.UrlResource;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.MalformedURLException;
+import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.UUID;
 
 @Service
@@ -25,19 +31,34 @@ public class FileStorageService {
     }
 
     public String store(MultipartFile file) throws IOException {
-        String storedFileName = UUID.randomUUID() + "-" + file.getOriginalFilename();
+        return store(file.getInputStream(), file.getOriginalFilename());
+    }
+
+    public String store(InputStream content, String originalFileName) throws IOException {
+        String storedFileName = UUID.randomUUID() + "-" + originalFileName;
         Path destinationFile = this.rootLocation.resolve(storedFileName).normalize().toAbsolutePath();
-        Files.copy(file.getInputStream(), destinationFile, StandardCopyOption.REPLACE_EXISTING);
+        try (InputStream in = content) {
+            Files.copy(in, destinationFile, StandardCopyOption.REPLACE_EXISTING);
+        }
         return storedFileName;
     }
 
     public Path storeDecrypted(byte[] decryptedData, String originalFileName) throws IOException {
-        String storedFileName = "decrypted-" + UUID.randomUUID() + "-" + originalFileName;
-        Path destinationFile = this.rootLocation.resolve(storedFileName).normalize().toAbsolutePath();
+        Path destinationFile = newDecryptedPath(originalFileName);
         Files.write(destinationFile, decryptedData);
         return destinationFile;
     }
 
+    // A fresh path for a decrypted file, for callers that write it themselves
+    public Path newDecryptedPath(String originalFileName) {
+        String storedFileName = "decrypted-" + UUID.randomUUID() + "-" + originalFileName;
+        return this.rootLocation.resolve(storedFileName).normalize().toAbsolutePath();
+    }
+
+    public Path resolve(String filename) {
+        return rootLocation.resolve(filename);
+    }
+
     public Resource loadAsResource(String filename) throws MalformedURLException {
         Path file = rootLocation.resolve(filename);
         Resource resource = new UrlResource(file.toUri());
@@ -52,4 +73,26 @@ public class FileStorageService {
         Path file = rootLocation.resolve(filename);
         return Files.readAllBytes(file);
     }
+
+    public boolean delete(String filename) throws IOException {
+        return Files.deleteIfExists(rootLocation.resolve(filename));
+    }
+
+    // Files directly under the storage root, with their last-modified time
+    public Map<String, Instant> listStoredFiles() throws IOException {
+        Map<String, Instant> files = new HashMap<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(rootLocation)) {
+            for (Path file : stream) {
+                BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+                if (attributes.isRegularFile()) {
+                    files.put(file.getFileName().toString(), attributes.lastModifiedTime().toInstant());
+                }
+            }
+        }
+        return files;
+    }
+
+    public long getUsableSpace() throws IOException {
+        return Files.getFileStore(rootLocation).getUsableSpace();
+    }
 }
\ No newline at end of file
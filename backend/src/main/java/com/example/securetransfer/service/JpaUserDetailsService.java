@@ -0,0 +1,55 @@
+package com.example.securetransfer.service;
+
+import com.example.securetransfer.repository.UserRepository;
+import com.example.securetransfer.util.BoundedCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+
+/**
+ * Loads users from the {@code users} table behind a bounded cache, so that the JWT filter
+ * resolves the principal of an authenticated request without a database round-trip.
+ * Changes to a user's password, role or enabled flag take effect once the cached entry
+ * expires ({@code auth.user-cache.ttl}).
+ */
+@Service
+public class JpaUserDetailsService implements UserDetailsService {
+
+    private final UserRepository userRepository;
+    private final BoundedCache<String, UserDetails> cache;
+
+    public JpaUserDetailsService(
+            UserRepository userRepository,
+            @Value("${auth.user-cache.max-size:10000}") int maxSize,
+            @Value("${auth.user-cache.ttl:5m}") Duration ttl) {
+        this.userRepository = userRepository;
+        this.cache = new BoundedCache<>(maxSize, ttl.toNanos());
+    }
+
+    @Override
+    public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
+        UserDetails cached = cache.getOrLoad(username, this::loadFromDatabase);
+        if (cached == null) {
+            throw new UsernameNotFoundException("User not found: " + username);
+        }
+        // Hand out copies: Spring Security erases credentials on the principal after login,
+        // which would otherwise wipe the password hash of the cached instance.
+        return User.withUserDetails(cached).build();
+    }
+
+    private UserDetails loadFromDatabase(String username) {
+        return userRepository.findByUsername(username)
+                .map(user -> User.builder()
+                        .username(user.getUsername())
+                        .password(user.getPasswordHash())
+                        .roles(user.getRole())
+                        .disabled(!user.isEnabled())
+                        .build())
+                .orElse(null);
+    }
+}
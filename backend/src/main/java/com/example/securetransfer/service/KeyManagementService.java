@@ -1,21 +1,66 @@
 package com.example.securetransfer.service;
 
-import jakarta.annotation.PostConstruct;
+import com.example.securetransfer.model.UserKeyPair;
+import com.example.securetransfer.repository.UserKeyPairRepository;
+import com.example.securetransfer.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.security.*;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.time.Instant;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * RSA key pairs per user, kept in the shared database so every cluster node signs and
+ * decrypts with the same keys. Private keys are stored sealed with AES-GCM under a wrapping
+ * key derived from {@code keys.wrapping-key}. A single node falls back to the JWT secret
+ * with a warning; in cluster mode the wrapping key must be set explicitly. A user's key pair
+ * is created the first time it is needed and never changes after that, so each node caches it.
+ */
 @Service
 public class KeyManagementService {
 
+    private static final Logger log = LoggerFactory.getLogger(KeyManagementService.class);
+
+    private static final int GCM_IV_BYTES = 12;
+    private static final int GCM_TAG_BITS = 128;
+
+    private final UserKeyPairRepository userKeyPairRepository;
+    private final UserRepository userRepository;
+    private final SecretKey wrappingKey;
+    private final SecureRandom random = new SecureRandom();
     private final Map<String, KeyPair> userKeys = new ConcurrentHashMap<>();
 
-    @PostConstruct
-    public void init() throws NoSuchAlgorithmException {
-        userKeys.put("alice", generateRsaKeyPair());
-        userKeys.put("bob", generateRsaKeyPair());
-        userKeys.put("charlie", generateRsaKeyPair());
+    public KeyManagementService(
+            UserKeyPairRepository userKeyPairRepository,
+            UserRepository userRepository,
+            ClusterService clusterService,
+            @Value("${keys.wrapping-key:}") String wrappingSecret,
+            @Value("${jwt.secret.key}") String jwtSecret) throws NoSuchAlgorithmException {
+        this.userKeyPairRepository = userKeyPairRepository;
+        this.userRepository = userRepository;
+        if (wrappingSecret.isBlank()) {
+            if (clusterService.isClustered()) {
+                throw new IllegalStateException("keys.wrapping-key must be set in cluster mode");
+            }
+            log.warn("keys.wrapping-key is not set; sealing private keys with a key derived from jwt.secret.key."
+                    + " Rotating the JWT secret will then make the stored private keys unreadable.");
+            wrappingSecret = jwtSecret;
+        }
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        digest.update("secure-transfer/user-keys".getBytes(StandardCharsets.UTF_8));
+        this.wrappingKey = new SecretKeySpec(digest.digest(wrappingSecret.getBytes(StandardCharsets.UTF_8)), "AES");
     }
 
     private KeyPair generateRsaKeyPair() throws NoSuchAlgorithmException {
@@ -25,14 +70,74 @@ public class KeyManagementService {
     }
 
     public PublicKey getPublicKey(String username) {
-        KeyPair keyPair = userKeys.get(username.toLowerCase());
-        if (keyPair == null) throw new IllegalArgumentException("No keys found for user: " + username);
-        return keyPair.getPublic();
+        return getKeyPair(username).getPublic();
     }
 
     public PrivateKey getPrivateKey(String username) {
-        KeyPair keyPair = userKeys.get(username.toLowerCase());
+        return getKeyPair(username).getPrivate();
+    }
+
+    private KeyPair getKeyPair(String username) {
+        KeyPair keyPair = userKeys.computeIfAbsent(username.toLowerCase(),
+            key -> userRepository.existsByUsername(username) ? loadOrCreate(key) : null);
         if (keyPair == null) throw new IllegalArgumentException("No keys found for user: " + username);
-        return keyPair.getPrivate();
+        return keyPair;
+    }
+
+    private KeyPair load(String username) {
+        try {
+            UserKeyPair stored = userKeyPairRepository.findById(username).orElse(null);
+            return stored != null ? decode(stored) : null;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Could not load keys for user: " + username, e);
+        }
+    }
+
+    private KeyPair loadOrCreate(String username) {
+        try {
+            KeyPair existing = load(username);
+            if (existing != null) {
+                return existing;
+            }
+            KeyPair keyPair = generateRsaKeyPair();
+            UserKeyPair entity = new UserKeyPair();
+            entity.setUsername(username);
+            entity.setPublicKey(keyPair.getPublic().getEncoded());
+            entity.setWrappedPrivateKey(wrap(keyPair.getPrivate().getEncoded()));
+            entity.setCreatedAt(Instant.now());
+            try {
+                userKeyPairRepository.save(entity);
+                return keyPair;
+            } catch (DataIntegrityViolationException e) {
+                // Another node created this user's keys first; use theirs
+                return decode(userKeyPairRepository.findById(username)
+                    .orElseThrow(() -> new IllegalStateException("No keys found for user: " + username, e)));
+            }
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Could not load keys for user: " + username, e);
+        }
+    }
+
+    private KeyPair decode(UserKeyPair stored) throws GeneralSecurityException {
+        KeyFactory keyFactory = KeyFactory.getInstance("RSA");
+        PublicKey publicKey = keyFactory.generatePublic(new X509EncodedKeySpec(stored.getPublicKey()));
+        PrivateKey privateKey = keyFactory.generatePrivate(new PKCS8EncodedKeySpec(unwrap(stored.getWrappedPrivateKey())));
+        return new KeyPair(publicKey, privateKey);
+    }
+
+    // Layout: IV || ciphertext + tag
+    private byte[] wrap(byte[] plain) throws GeneralSecurityException {
+        byte[] iv = new byte[GCM_IV_BYTES];
+        random.nextBytes(iv);
+        Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+        cipher.init(Cipher.ENCRYPT_MODE, wrappingKey, new GCMParameterSpec(GCM_TAG_BITS, iv));
+        byte[] sealed = cipher.doFinal(plain);
+        return ByteBuffer.allocate(iv.length + sealed.length).put(iv).put(sealed).array();
+    }
+
+    private byte[] unwrap(byte[] wrapped) throws GeneralSecurityException {
+        Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+        cipher.init(Cipher.DECRYPT_MODE, wrappingKey, new GCMParameterSpec(GCM_TAG_BITS, wrapped, 0, GCM_IV_BYTES));
+        return cipher.doFinal(wrapped, GCM_IV_BYTES, wrapped.length - GCM_IV_BYTES);
     }
 }
\ No newline at end of file
@@ -0,0 +1,141 @@
+package com.example.securetransfer.service;
+
+import com.example.securetransfer.util.TokenBucket;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * In-process rate limiting. Request rates are limited with per-IP and per-user token
+ * buckets, transfer concurrency with a per-sender in-flight counter, and upload volume with
+ * a per-user byte bucket that is charged before the request body is read.
+ */
+@Service
+public class RateLimitService {
+
+    // PRODUCTION: These limits are per JVM. Behind a load balancer they scale with the node count.
+    private final Map<String, TokenBucket> ipBuckets = new ConcurrentHashMap<>();
+    private final Map<String, TokenBucket> loginIpBuckets = new ConcurrentHashMap<>();
+    private final Map<String, TokenBucket> loginUserBuckets = new ConcurrentHashMap<>();
+    private final Map<String, TokenBucket> transferUserBuckets = new ConcurrentHashMap<>();
+    private final Map<String, TokenBucket> bandwidthBuckets = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> inFlightTransfers = new ConcurrentHashMap<>();
+
+    private final boolean enabled;
+    private final Supplier<TokenBucket> ipBucket;
+    private final Supplier<TokenBucket> loginIpBucket;
+    private final Supplier<TokenBucket> loginUserBucket;
+    private final Supplier<TokenBucket> transferUserBucket;
+    private final Supplier<TokenBucket> bandwidthBucket;
+    private final int maxInFlightTransfers;
+
+    public RateLimitService(
+            @Value("${ratelimit.enabled:true}") boolean enabled,
+            @Value("${ratelimit.ip.capacity:100}") long ipCapacity,
+            @Value("${ratelimit.ip.per-second:20}") double ipRate,
+            @Value("${ratelimit.login.ip.capacity:10}") long loginIpCapacity,
+            @Value("${ratelimit.login.ip.per-second:1}") double loginIpRate,
+            @Value("${ratelimit.login.user.capacity:5}") long loginUserCapacity,
+            @Value("${ratelimit.login.user.per-second:0.2}") double loginUserRate,
+            @Value("${ratelimit.transfer.user.capacity:20}") long transferCapacity,
+            @Value("${ratelimit.transfer.user.per-second:2}") double transferRate,
+            @Value("${ratelimit.transfer.max-in-flight:4}") int maxInFlightTransfers,
+            @Value("${ratelimit.bandwidth.user.burst:8MB}") DataSize bandwidthBurst,
+            @Value("${ratelimit.bandwidth.user.per-second:50MB}") DataSize bandwidthRate) {
+        this.enabled = enabled;
+        this.ipBucket = () -> new TokenBucket(ipCapacity, ipRate);
+        this.loginIpBucket = () -> new TokenBucket(loginIpCapacity, loginIpRate);
+        this.loginUserBucket = () -> new TokenBucket(loginUserCapacity, loginUserRate);
+        this.transferUserBucket = () -> new TokenBucket(transferCapacity, transferRate);
+        this.bandwidthBucket = () -> new TokenBucket(bandwidthBurst.toBytes(), bandwidthRate.toBytes());
+        this.maxInFlightTransfers = maxInFlightTransfers;
+    }
+
+    /**
+     * The {@code tryAcquire*} methods return 0 when the request may proceed, otherwise the
+     * number of nanoseconds the caller should wait before retrying.
+     */
+    public long tryAcquireApiRequest(String clientIp) {
+        return acquire(ipBuckets, clientIp, ipBucket);
+    }
+
+    public long tryAcquireLoginByIp(String clientIp) {
+        return acquire(loginIpBuckets, clientIp, loginIpBucket);
+    }
+
+    // Keyed on the client as well as the account, so failing logins from one client can't lock others out of it
+    public long tryAcquireLoginByUser(String clientIp, String username) {
+        String key = clientIp + '|' + (username == null ? "" : username.toLowerCase());
+        return acquire(loginUserBuckets, key, loginUserBucket);
+    }
+
+    public long tryAcquireTransferStart(String username) {
+        return acquire(transferUserBuckets, username, transferUserBucket);
+    }
+
+    public boolean tryAcquireTransferSlot(String username) {
+        if (!enabled) {
+            return true;
+        }
+        AtomicInteger inFlight = inFlightTransfers.computeIfAbsent(username, k -> new AtomicInteger());
+        while (true) {
+            int current = inFlight.get();
+            if (current >= maxInFlightTransfers) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    public void releaseTransferSlot(String username) {
+        if (!enabled) {
+            return;
+        }
+        AtomicInteger inFlight = inFlightTransfers.get(username);
+        if (inFlight != null) {
+            inFlight.updateAndGet(current -> Math.max(0, current - 1));
+        }
+    }
+
+    // Charges an upload of the given size to the user's byte quota; may overdraw it once
+    public long tryAcquireUpload(String username, long bytes) {
+        if (!enabled) {
+            return 0;
+        }
+        return bandwidthBuckets.computeIfAbsent(username, k -> bandwidthBucket.get()).tryReserve(bytes);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public static String retryAfterSeconds(long waitNanos) {
+        return String.valueOf(Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999L)));
+    }
+
+    // Buckets that have refilled are indistinguishable from new ones, so drop them to bound memory
+    @Scheduled(fixedRate = 60000)
+    public void evictIdleBuckets() {
+        ipBuckets.values().removeIf(TokenBucket::isFull);
+        loginIpBuckets.values().removeIf(TokenBucket::isFull);
+        loginUserBuckets.values().removeIf(TokenBucket::isFull);
+        transferUserBuckets.values().removeIf(TokenBucket::isFull);
+        bandwidthBuckets.values().removeIf(TokenBucket::isFull);
+    }
+
+    private long acquire(Map<String, TokenBucket> buckets, String key, Supplier<TokenBucket> factory) {
+        if (!enabled) {
+            return 0;
+        }
+        return buckets.computeIfAbsent(key, k -> factory.get()).tryAcquire(1);
+    }
+}
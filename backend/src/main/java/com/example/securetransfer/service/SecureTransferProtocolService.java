@@ -1,9 +1,11 @@
 package com.example.securetransfer.service;
 
+import com.example.securetransfer.model.AuditEventType;
 import com.example.securetransfer.model.Transfer;
 import com.example.securetransfer.model.TransferStatus;
 import com.example.securetransfer.repository.TransferRepository;
 import com.example.securetransfer.util.CryptoUtils;
+import com.example.securetransfer.util.DeltaUtils;
 import lombok.RequiredArgsConstructor;
 // Add these two imports for logging
 import org.slf4j.Logger;
@@ -14,13 +16,16 @@ import org.springframework.stereotype.Service;
 import javax.crypto.SecretKey;
 import javax.crypto.spec.IvParameterSpec;
 import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.security.PrivateKey;
 import java.security.PublicKey;
 import java.security.SecureRandom;
 import java.time.Instant;
 import java.util.Arrays;
+import java.util.List;
 import java.util.UUID;
 
 @Service
@@ -31,16 +36,50 @@ public class SecureTransferProtocolService {
     private static final Logger log = LoggerFactory.getLogger(SecureTransferProtocolService.class);
 
     private final TransferRepository transferRepository;
+    private final TransferStatusService transferStatusService;
     private final KeyManagementService keyManagementService;
     private final NonceService nonceService;
     private final FileStorageService fileStorageService;
+    private final StorageLifecycleService storageLifecycleService;
+    private final RateLimitService rateLimitService;
+    private final TransferPipeline transferPipeline;
+    private final ClusterService clusterService;
+    private final AuditService auditService;
 
+    /**
+     * Runs the protocol for a freshly inserted transfer. The caller passes the entity it just
+     * saved, so processing starts without re-reading the row.
+     */
     @Async
-    public void processTransfer(UUID transferId, String senderUsername, String receiverUsername) {
+    public void processTransfer(Transfer transfer) {
+        try {
+            runProtocol(transfer, null, 0);
+        } finally {
+            // Frees the sender's in-flight slot taken in TransferController
+            rateLimitService.releaseTransferSlot(transfer.getSenderUsername());
+        }
+    }
+
+    /**
+     * Small-file fast path: runs the protocol on the caller's thread over content that is
+     * already in memory, so the only disk write is the decrypted file. The transfer has not
+     * been saved yet; its final status is set on the entity for the caller to insert in one go.
+     */
+    public void processInMemory(Transfer transfer, byte[] content, int length) {
+        runProtocol(transfer, content, length);
+    }
+
+    // content is null when the upload is on disk under the transfer's stored file name
+    private void runProtocol(Transfer transfer, byte[] content, int contentLength) {
+        UUID transferId = transfer.getId();
+        String senderUsername = transfer.getSenderUsername();
+        String receiverUsername = transfer.getReceiverUsername();
+        String storedFileName = transfer.getStoredFileName();
         log.info("Starting processing for transfer ID: {}", transferId);
-        Transfer transfer = transferRepository.findById(transferId)
-            .orElseThrow(() -> new IllegalStateException("Transfer not found for ID: " + transferId));
 
+        Path decryptedFilePath = null;
+        // The phase a failure is recorded against in the audit log
+        AuditEventType phase = AuditEventType.HANDSHAKE;
         try {
             // === KEY RETRIEVAL ===
             PublicKey senderPublicKey = keyManagementService.getPublicKey(senderUsername);
@@ -62,6 +101,8 @@ public class SecureTransferProtocolService {
                 throw new SecurityException("Handshake failed: Invalid sender signature.");
             }
             log.info("[{}] Handshake successful", transferId);
+            auditService.record(transferId, AuditEventType.HANDSHAKE, true, senderUsername, "Nonce verified, sender signature valid");
+            phase = AuditEventType.KEY_EXCHANGE;
 
             // === AES KEY EXCHANGE (Receiver -> Sender) ===
             SecretKey aesSessionKey = new SecretKeySpec(new SecureRandom().generateSeed(32), "AES"); // AES-256
@@ -77,43 +118,145 @@ public class SecureTransferProtocolService {
                 throw new SecurityException("AES key exchange failed: Invalid signature from receiver.");
             }
             log.info("[{}] AES key exchange successful", transferId);
+            auditService.record(transferId, AuditEventType.KEY_EXCHANGE, true, receiverUsername, "AES-256 session key accepted, receiver signature valid");
+            phase = AuditEventType.INTEGRITY_CHECK;
             
             SecretKey finalAesKey = new SecretKeySpec(decryptedKeyBytes, "AES");
             IvParameterSpec finalIvSpec = new IvParameterSpec(iv);
 
             // === FILE TRANSFER (Sender -> Receiver) ===
-            byte[] fileData = fileStorageService.loadAsBytes(transfer.getStoredFileName());
-            byte[] fileHash = CryptoUtils.calculateSHA256Hash(fileData);
-            byte[] encryptedFile = CryptoUtils.aesEncrypt(fileData, finalAesKey, finalIvSpec);
+            byte[] fileHash;
+            byte[] receiverCalculatedHash;
+            byte[] decryptedFileData = null;
+            Transfer base = transfer.getBaseTransferId() != null ? loadBase(transfer) : null;
+            byte[] baseData = base != null ? loadBaseData(transfer, base) : null;
+            if (baseData != null) {
+                byte[] fileData = content != null ? Arrays.copyOf(content, contentLength) : fileStorageService.loadAsBytes(storedFileName);
+                fileHash = CryptoUtils.calculateSHA256Hash(fileData);
+                decryptedFileData = transferDelta(transfer, base, baseData, fileData, finalAesKey, finalIvSpec);
+                receiverCalculatedHash = CryptoUtils.calculateSHA256Hash(decryptedFileData);
+            } else if (content != null) {
+                fileHash = CryptoUtils.calculateSHA256Hash(content, 0, contentLength);
+                byte[] encryptedFile = CryptoUtils.aesEncrypt(content, 0, contentLength, finalAesKey, finalIvSpec);
+
+                // SIMULATED TRANSMISSION: Receiver decrypts
+                decryptedFileData = CryptoUtils.aesDecrypt(encryptedFile, finalAesKey, finalIvSpec);
+                receiverCalculatedHash = CryptoUtils.calculateSHA256Hash(decryptedFileData);
+            } else {
+                // Read, encrypt, (transmit,) decrypt and write overlap chunk by chunk; the
+                // receiver's copy lands on disk but is only published once verified below
+                decryptedFilePath = fileStorageService.newDecryptedPath(transfer.getOriginalFileName());
+                TransferPipeline.Result result = transferPipeline.run(
+                        fileStorageService.resolve(storedFileName), decryptedFilePath, finalAesKey, finalIvSpec);
+                fileHash = result.getSenderHash();
+                receiverCalculatedHash = result.getReceiverHash();
+            }
             byte[] signedFileHash = CryptoUtils.signData(fileHash, senderPrivateKey);
 
-            // SIMULATED TRANSMISSION: Receiver verifies and decrypts
+            // Receiver verifies the signed hash against the full (possibly reconstructed) file
             if (!CryptoUtils.verifySignature(fileHash, signedFileHash, senderPublicKey)) {
                 throw new SecurityException("File transfer failed: Invalid file hash signature.");
             }
-            byte[] decryptedFileData = CryptoUtils.aesDecrypt(encryptedFile, finalAesKey, finalIvSpec);
-
-            byte[] receiverCalculatedHash = CryptoUtils.calculateSHA256Hash(decryptedFileData);
             if (!Arrays.equals(fileHash, receiverCalculatedHash)) {
                 throw new SecurityException("File integrity check failed: Hashes do not match.");
             }
             log.info("[{}] File integrity check successful", transferId);
+            auditService.record(transferId, AuditEventType.INTEGRITY_CHECK, true, receiverUsername,
+                    "SHA-256 " + CryptoUtils.bytesToHex(fileHash) + (baseData != null ? " (delta)" : ""));
+            phase = AuditEventType.TRANSFER_COMPLETED;
 
             // Store decrypted file
-            Path decryptedFilePath = fileStorageService.storeDecrypted(decryptedFileData, transfer.getOriginalFileName());
+            if (decryptedFileData != null) {
+                decryptedFilePath = fileStorageService.storeDecrypted(decryptedFileData, transfer.getOriginalFileName());
+            }
 
             // Update transfer status to COMPLETED
-            transfer.setStatus(TransferStatus.COMPLETED);
-            transfer.setCompletedAt(Instant.now());
-            transfer.setDecryptedFileName(decryptedFilePath.getFileName().toString());
-            transferRepository.save(transfer);
+            if (content == null) {
+                transferStatusService.markCompleted(transferId, decryptedFilePath.getFileName().toString());
+            } else {
+                transfer.setStatus(TransferStatus.COMPLETED);
+                transfer.setDecryptedFileName(decryptedFilePath.getFileName().toString());
+                transfer.setCompletedAt(Instant.now());
+            }
             log.info("Successfully completed transfer {}", transferId);
+            // An in-memory transfer is only complete once the caller has saved its row
+            if (content == null) {
+                auditService.record(transferId, AuditEventType.TRANSFER_COMPLETED, true, null, null);
+            }
 
         } catch (Exception e) {
             log.error("Failed to process transfer {}: {}", transferId, e.getMessage(), e);
-            transfer.setStatus(TransferStatus.FAILED);
-            transfer.setFailureReason(e.getClass().getSimpleName() + ": " + e.getMessage());
-            transferRepository.save(transfer);
+            if (content == null) {
+                transferStatusService.markFailed(transferId, e.getClass().getSimpleName() + ": " + e.getMessage());
+            } else {
+                transfer.setStatus(TransferStatus.FAILED);
+                transfer.setFailureReason(e.getClass().getSimpleName() + ": " + e.getMessage());
+            }
+            auditService.record(transferId, phase, false, null, e.getClass().getSimpleName() + ": " + e.getMessage());
+            deleteQuietly(decryptedFilePath);
+        } finally {
+            // Once the transfer is terminal the raw upload is no longer needed
+            storageLifecycleService.releaseUpload(storedFileName);
+        }
+    }
+
+    /**
+     * Delta mode: the receiver publishes block signatures of the revision it already holds,
+     * the sender encrypts only the instructions needed to turn that revision into the new
+     * one, and the receiver rebuilds the full file from its local copy.
+     */
+    private byte[] transferDelta(Transfer transfer, Transfer base, byte[] baseData, byte[] fileData, SecretKey aesKey, IvParameterSpec ivSpec) throws Exception {
+        // Receiver side: signatures of the prior version
+        List<DeltaUtils.BlockSignature> signatures = DeltaUtils.computeSignatures(baseData, DeltaUtils.DEFAULT_BLOCK_SIZE);
+
+        // Sender side: delta against those signatures, encrypted on its own
+        byte[] delta = DeltaUtils.computeDelta(fileData, signatures, DeltaUtils.DEFAULT_BLOCK_SIZE);
+        byte[] encryptedDelta = CryptoUtils.aesEncrypt(delta, aesKey, ivSpec);
+        log.info("[{}] Delta against {} is {} bytes for a {} byte file", transfer.getId(), base.getId(), encryptedDelta.length, fileData.length);
+
+        // SIMULATED TRANSMISSION: Receiver decrypts the delta and rebuilds the file
+        byte[] decryptedDelta = CryptoUtils.aesDecrypt(encryptedDelta, aesKey, ivSpec);
+        return DeltaUtils.applyDelta(baseData, decryptedDelta);
+    }
+
+    // Returns null when the receiver no longer holds the base locally, so the whole file is sent instead
+    private Transfer loadBase(Transfer transfer) {
+        Transfer base = transferRepository.findById(transfer.getBaseTransferId())
+            .orElseThrow(() -> new IllegalStateException("Base transfer not found for ID: " + transfer.getBaseTransferId()));
+        if (base.getStatus() == TransferStatus.EXPIRED) {
+            log.info("[{}] Base transfer {} has expired, sending the full file", transfer.getId(), base.getId());
+            return null;
+        }
+        if (base.getStatus() != TransferStatus.COMPLETED || base.getDecryptedFileName() == null) {
+            throw new IllegalStateException("Base transfer " + base.getId() + " is not available to the receiver");
+        }
+        if (!clusterService.isLocal(base.getStorageNode())) {
+            // The receiver's copy of the base is in another node's shard
+            log.info("[{}] Base transfer {} is stored on node {}, sending the full file", transfer.getId(), base.getId(), base.getStorageNode());
+            return null;
+        }
+        return base;
+    }
+
+    private byte[] loadBaseData(Transfer transfer, Transfer base) throws IOException {
+        try {
+            return fileStorageService.loadAsBytes(base.getDecryptedFileName());
+        } catch (NoSuchFileException e) {
+            // Expired by a sweep after the status check above
+            log.info("[{}] Base transfer {} was removed meanwhile, sending the full file", transfer.getId(), base.getId());
+            return null;
+        }
+    }
+
+    // Drops a receiver copy that never passed verification
+    private void deleteQuietly(Path decryptedFilePath) {
+        if (decryptedFilePath == null) {
+            return;
+        }
+        try {
+            fileStorageService.delete(decryptedFilePath.getFileName().toString());
+        } catch (IOException e) {
+            log.warn("Could not delete unverified file {}: {}", decryptedFilePath, e.getMessage());
         }
     }
 }
\ No newline at end of file
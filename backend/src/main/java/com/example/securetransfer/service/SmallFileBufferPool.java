@@ -0,0 +1,74 @@
+package com.example.securetransfer.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Reusable upload buffers for the small-file fast path. Each buffer holds one file up to
+ * {@code transfer.small-file.threshold}; at most {@code memory-budget / threshold} exist, and
+ * they are created on first use. When all are taken the upload goes down the regular disk
+ * path instead of waiting.
+ */
+@Service
+public class SmallFileBufferPool {
+
+    private final int threshold;
+    private final int maxBuffers;
+    private final Queue<byte[]> free = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger created = new AtomicInteger();
+
+    public SmallFileBufferPool(
+            @Value("${transfer.small-file.threshold:64KB}") DataSize threshold,
+            @Value("${transfer.small-file.memory-budget:32MB}") DataSize memoryBudget) {
+        this.threshold = (int) Math.min(threshold.toBytes(), Integer.MAX_VALUE - 64);
+        this.maxBuffers = this.threshold > 0 ? (int) Math.min(memoryBudget.toBytes() / this.threshold, Integer.MAX_VALUE) : 0;
+    }
+
+    /**
+     * A buffer for a file of {@code size} bytes, or {@code null} if the file is above the
+     * threshold or the budget is used up. Return it with {@link #release}.
+     */
+    public byte[] tryAcquire(long size) {
+        if (size > threshold || maxBuffers == 0) {
+            return null;
+        }
+        byte[] buffer = free.poll();
+        if (buffer != null) {
+            return buffer;
+        }
+        while (true) {
+            int count = created.get();
+            if (count >= maxBuffers) {
+                // Another thread may have released one meanwhile
+                return free.poll();
+            }
+            if (created.compareAndSet(count, count + 1)) {
+                return new byte[threshold];
+            }
+        }
+    }
+
+    public void release(byte[] buffer) {
+        if (buffer != null) {
+            free.offer(buffer);
+        }
+    }
+
+    // Reads the whole stream into the buffer and returns the length
+    public static int readFully(InputStream content, byte[] buffer) throws IOException {
+        try (InputStream in = content) {
+            int length = in.readNBytes(buffer, 0, buffer.length);
+            if (in.read() != -1) {
+                throw new IOException("Upload is larger than the small-file buffer");
+            }
+            return length;
+        }
+    }
+}
@@ -0,0 +1,235 @@
+package com.example.securetransfer.service;
+
+import com.example.securetransfer.model.Transfer;
+import com.example.securetransfer.model.TransferStatus;
+import com.example.securetransfer.repository.TransferRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Owns the lifecycle of everything under the file store root: raw uploads are dropped as
+ * soon as their transfer reaches a terminal state, decrypted files expire after a
+ * retention window, and a background sweeper removes whatever slipped through the cracks.
+ */
+@Service
+public class StorageLifecycleService {
+
+    private static final Logger log = LoggerFactory.getLogger(StorageLifecycleService.class);
+    // Under space pressure every upload asks for a sweep; one per interval is plenty
+    private static final long SWEEP_REQUEST_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+    private final FileStorageService fileStorageService;
+    private final TransferRepository transferRepository;
+    private final TransferStatusService transferStatusService;
+    private final TaskScheduler taskScheduler;
+    private final ClusterService clusterService;
+
+    private final Duration retentionAfterDownload;
+    private final Duration retentionUnclaimed;
+    private final Duration orphanGracePeriod;
+    private final int sweepBatchSize;
+    private final long minFreeBytes;
+    private final long sweepTriggerFreeBytes;
+
+    private final AtomicBoolean sweepRunning = new AtomicBoolean();
+    private final AtomicLong lastSweepRequest = new AtomicLong(System.nanoTime() - SWEEP_REQUEST_INTERVAL_NANOS);
+
+    public StorageLifecycleService(
+            FileStorageService fileStorageService,
+            TransferRepository transferRepository,
+            TransferStatusService transferStatusService,
+            TaskScheduler taskScheduler,
+            ClusterService clusterService,
+            @Value("${storage.retention.after-download:1h}") Duration retentionAfterDownload,
+            @Value("${storage.retention.unclaimed:7d}") Duration retentionUnclaimed,
+            @Value("${storage.reconcile.grace-period:15m}") Duration orphanGracePeriod,
+            @Value("${storage.sweep.batch-size:500}") int sweepBatchSize,
+            @Value("${storage.admission.min-free:1GB}") DataSize minFree,
+            @Value("${storage.sweep.trigger-free:5GB}") DataSize sweepTriggerFree) {
+        this.fileStorageService = fileStorageService;
+        this.transferRepository = transferRepository;
+        this.transferStatusService = transferStatusService;
+        this.taskScheduler = taskScheduler;
+        this.clusterService = clusterService;
+        this.retentionAfterDownload = retentionAfterDownload;
+        this.retentionUnclaimed = retentionUnclaimed;
+        this.orphanGracePeriod = orphanGracePeriod;
+        this.sweepBatchSize = sweepBatchSize;
+        this.minFreeBytes = minFree.toBytes();
+        this.sweepTriggerFreeBytes = sweepTriggerFree.toBytes();
+    }
+
+    // Claimed before the first sweep, which only looks at this node's transfers
+    @PostConstruct
+    public void claimLegacyTransfers() {
+        if (clusterService.ownsLegacyTransfers()) {
+            int claimed = transferRepository.assignUnownedTo(clusterService.getLocalNodeId());
+            if (claimed > 0) {
+                log.info("Assigned {} transfers without a storage node to node {}", claimed, clusterService.getLocalNodeId());
+            }
+        }
+    }
+
+    /**
+     * Admission control for new uploads. Rejects the upload if storing it would push free
+     * space below the low watermark, and kicks off an early sweep once free space drops
+     * below the sweep watermark.
+     */
+    public boolean admit(long incomingBytes) {
+        long usable;
+        try {
+            usable = fileStorageService.getUsableSpace();
+        } catch (IOException e) {
+            log.warn("Could not determine free space of the file store: {}", e.getMessage());
+            return true;
+        }
+        if (usable < sweepTriggerFreeBytes) {
+            requestSweep();
+        }
+        return usable - incomingBytes >= minFreeBytes;
+    }
+
+    // Raw uploads are only needed while the protocol runs
+    public void releaseUpload(String storedFileName) {
+        deleteQuietly(storedFileName, "raw upload");
+    }
+
+    // A decrypted file whose transfer row could not be saved is unreachable
+    public void discardDecrypted(String decryptedFileName) {
+        deleteQuietly(decryptedFileName, "decrypted file");
+    }
+
+    public void requestSweep() {
+        long now = System.nanoTime();
+        long last = lastSweepRequest.get();
+        if (sweepRunning.get() || now - last < SWEEP_REQUEST_INTERVAL_NANOS || !lastSweepRequest.compareAndSet(last, now)) {
+            return;
+        }
+        taskScheduler.schedule(this::sweepExpired, Instant.now());
+    }
+
+    @Scheduled(fixedDelayString = "${storage.sweep.interval-ms:60000}")
+    public void sweepExpired() {
+        if (!sweepRunning.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            Instant now = Instant.now();
+            int expired = 0;
+            List<Transfer> batch;
+            do {
+                batch = transferRepository.findExpiredDecrypted(clusterService.getLocalNodeId(),
+                        now.minus(retentionAfterDownload), now.minus(retentionUnclaimed), PageRequest.of(0, sweepBatchSize));
+                expired += expireBatch(batch);
+            } while (batch.size() == sweepBatchSize);
+            if (expired > 0) {
+                log.info("Expired {} decrypted files", expired);
+            }
+        } catch (Exception e) {
+            log.error("Storage sweep failed: {}", e.getMessage(), e);
+        } finally {
+            sweepRunning.set(false);
+        }
+    }
+
+    /**
+     * Reconciles the storage directory against the transfer table in both directions:
+     * files that no live transfer references are deleted, and completed transfers whose
+     * decrypted file has vanished are marked expired.
+     */
+    @Scheduled(fixedDelayString = "${storage.reconcile.interval-ms:900000}", initialDelayString = "${storage.reconcile.interval-ms:900000}")
+    public void reconcile() {
+        if (!sweepRunning.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            Instant listedAt = Instant.now();
+            Map<String, Instant> files = fileStorageService.listStoredFiles();
+
+            Set<String> referenced = new HashSet<>(transferRepository.findStoredFileNamesByStatusIn(
+                    EnumSet.of(TransferStatus.PENDING, TransferStatus.PROCESSING)));
+            List<UUID> missing = new ArrayList<>();
+            // Other nodes' files live in their own shards
+            for (Object[] row : transferRepository.findDecryptedFileNames(clusterService.getLocalNodeId())) {
+                String decryptedFileName = (String) row[1];
+                referenced.add(decryptedFileName);
+                Instant completedAt = (Instant) row[2];
+                // Transfers completing after the listing legitimately have files we did not see
+                if (!files.containsKey(decryptedFileName) && completedAt != null && completedAt.isBefore(listedAt)) {
+                    missing.add((UUID) row[0]);
+                }
+            }
+
+            Instant graceCutoff = Instant.now().minus(orphanGracePeriod);
+            int orphans = 0;
+            for (Map.Entry<String, Instant> file : files.entrySet()) {
+                if (!referenced.contains(file.getKey()) && file.getValue().isBefore(graceCutoff)
+                        && fileStorageService.delete(file.getKey())) {
+                    orphans++;
+                }
+            }
+            for (int i = 0; i < missing.size(); i += sweepBatchSize) {
+                transferStatusService.markExpired(missing.subList(i, Math.min(i + sweepBatchSize, missing.size())));
+            }
+            if (orphans > 0 || !missing.isEmpty()) {
+                log.info("Reconciled file store: deleted {} orphaned files, expired {} transfers with missing files", orphans, missing.size());
+            }
+        } catch (Exception e) {
+            log.error("File store reconciliation failed: {}", e.getMessage(), e);
+        } finally {
+            sweepRunning.set(false);
+        }
+    }
+
+    private void deleteQuietly(String filename, String kind) {
+        if (filename == null) {
+            return;
+        }
+        try {
+            fileStorageService.delete(filename);
+        } catch (IOException e) {
+            // The reconciler will pick it up on its next pass
+            log.warn("Could not delete {} {}: {}", kind, filename, e.getMessage());
+        }
+    }
+
+    private int expireBatch(List<Transfer> batch) {
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        List<UUID> ids = new ArrayList<>(batch.size());
+        for (Transfer transfer : batch) {
+            try {
+                if (transfer.getDecryptedFileName() != null) {
+                    fileStorageService.delete(transfer.getDecryptedFileName());
+                }
+            } catch (IOException e) {
+                log.warn("Could not delete decrypted file {}: {}", transfer.getDecryptedFileName(), e.getMessage());
+            }
+            ids.add(transfer.getId());
+        }
+        // One UPDATE per batch rather than one merge per transfer
+        return transferStatusService.markExpired(ids);
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.securetransfer.service;
+
+import com.example.securetransfer.model.Transfer;
+import com.example.securetransfer.repository.TransferRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Group commit for new transfers. Request threads hand their row to a single writer thread
+ * and wait; the writer drains whatever has queued up and inserts it in one transaction as
+ * a JDBC batch (see {@code hibernate.jdbc.batch_size}). Under a burst of uploads this turns
+ * N commits into one, and a lone request pays only a thread hand-off.
+ */
+@Service
+public class TransferBatchWriter {
+
+    private static final Logger log = LoggerFactory.getLogger(TransferBatchWriter.class);
+
+    private static class PendingInsert {
+        final Transfer transfer;
+        final CompletableFuture<Void> done = new CompletableFuture<>();
+
+        PendingInsert(Transfer transfer) {
+            this.transfer = transfer;
+        }
+    }
+
+    private final TransferRepository transferRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final BlockingQueue<PendingInsert> queue;
+    private final int maxBatchSize;
+    private final Thread writer = new Thread(this::run, "transfer-batch-writer");
+    private volatile boolean running = true;
+
+    public TransferBatchWriter(
+            TransferRepository transferRepository,
+            TransactionTemplate transactionTemplate,
+            @Value("${transfer.insert-batch.max-size:50}") int maxBatchSize,
+            @Value("${transfer.insert-batch.queue-capacity:1000}") int queueCapacity) {
+        this.transferRepository = transferRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.maxBatchSize = maxBatchSize;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+    }
+
+    @PostConstruct
+    public void start() {
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Inserts a new transfer, blocking until its batch has committed. Blocks while the queue
+     * is full, which pushes back on uploads when the database falls behind.
+     */
+    public void insert(Transfer transfer) {
+        if (!running) {
+            throw new IllegalStateException("Transfer writer is shut down");
+        }
+        PendingInsert pending = new PendingInsert(transfer);
+        try {
+            queue.put(pending);
+            pending.done.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while saving transfer " + transfer.getId(), e);
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        writer.join(TimeUnit.SECONDS.toMillis(10));
+    }
+
+    private void run() {
+        List<PendingInsert> batch = new ArrayList<>(maxBatchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingInsert first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, maxBatchSize - 1);
+                flush(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void flush(List<PendingInsert> batch) {
+        try {
+            transactionTemplate.executeWithoutResult(status ->
+                    transferRepository.saveAll(batch.stream().map(pending -> pending.transfer).toList()));
+            batch.forEach(pending -> pending.done.complete(null));
+        } catch (RuntimeException e) {
+            if (batch.size() == 1) {
+                batch.get(0).done.completeExceptionally(e);
+                return;
+            }
+            // Don't let one bad row fail everybody else's upload: retry them one by one
+            log.warn("Batch insert of {} transfers failed, retrying individually: {}", batch.size(), e.getMessage());
+            for (PendingInsert pending : batch) {
+                pending.transfer.setVersion(null);
+                flush(List.of(pending));
+            }
+        }
+    }
+}
@@ -0,0 +1,294 @@
+package com.example.securetransfer.service;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.IvParameterSpec;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Streams a file through the transfer's crypto as four overlapping stages:
+ *
+ * <pre>
+ * reader (NIO) -> sender crypto (hash + encrypt) -> receiver crypto (decrypt + hash) -> writer (NIO)
+ * </pre>
+ *
+ * Stages hand chunks to each other through bounded rings and run on their own threads, so
+ * disk reads, AES and disk writes proceed at the same time. All buffers come from a
+ * {@link Lease}: a fixed set of direct buffers and scratch arrays built once at startup and
+ * recycled chunk after chunk, so a running transfer allocates next to nothing. The number
+ * of leases caps how many pipelines run at once; further transfers wait for one.
+ */
+@Service
+public class TransferPipeline {
+
+    private static final int POLL_MILLIS = 50;
+    private static final int AES_BLOCK = 16;
+    // Marks the end of the stream in a ring; never handed to a channel or cipher
+    private static final ByteBuffer END = ByteBuffer.allocate(0);
+
+    private final int chunkSize;
+    private final int ringDepth;
+    private final BlockingQueue<Lease> leases;
+    private final ExecutorService stageThreads;
+
+    public TransferPipeline(
+            @Value("${pipeline.chunk-size:256KB}") DataSize chunkSize,
+            @Value("${pipeline.ring-depth:4}") int ringDepth,
+            @Value("${pipeline.max-concurrent:4}") int maxConcurrent) {
+        // Whole AES blocks per chunk, so every update() emits exactly what it consumed
+        this.chunkSize = Math.max(AES_BLOCK, (int) chunkSize.toBytes() / AES_BLOCK * AES_BLOCK);
+        this.ringDepth = ringDepth;
+        this.leases = new ArrayBlockingQueue<>(maxConcurrent);
+        for (int i = 0; i < maxConcurrent; i++) {
+            leases.add(new Lease(this.chunkSize, ringDepth));
+        }
+        AtomicInteger counter = new AtomicInteger();
+        this.stageThreads = Executors.newFixedThreadPool(maxConcurrent * 3, runnable -> {
+            Thread thread = new Thread(runnable, "transfer-pipeline-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public static class Result {
+        private final byte[] senderHash;
+        private final byte[] receiverHash;
+        private final long bytes;
+
+        Result(byte[] senderHash, byte[] receiverHash, long bytes) {
+            this.senderHash = senderHash;
+            this.receiverHash = receiverHash;
+            this.bytes = bytes;
+        }
+
+        // SHA-256 of the plaintext as read by the sender
+        public byte[] getSenderHash() { return senderHash; }
+        // SHA-256 of the plaintext as decrypted by the receiver
+        public byte[] getReceiverHash() { return receiverHash; }
+        public long getBytes() { return bytes; }
+    }
+
+    /**
+     * Encrypts {@code source}, decrypts the ciphertext again on the receiver side and writes
+     * the plaintext to {@code destination}, returning both sides' hashes for verification.
+     * The destination is left for the caller to delete if verification fails.
+     */
+    public Result run(Path source, Path destination, SecretKey key, IvParameterSpec iv) throws Exception {
+        Lease lease = leases.take();
+        Run run = new Run(lease);
+        try {
+            Cipher encrypt = Cipher.getInstance("AES/CBC/PKCS5Padding");
+            encrypt.init(Cipher.ENCRYPT_MODE, key, iv);
+            Cipher decrypt = Cipher.getInstance("AES/CBC/PKCS5Padding");
+            decrypt.init(Cipher.DECRYPT_MODE, key, iv);
+            MessageDigest senderDigest = MessageDigest.getInstance("SHA-256");
+            MessageDigest receiverDigest = MessageDigest.getInstance("SHA-256");
+
+            run.start(() -> run.read(source));
+            run.start(() -> run.crypt(run.plaintext, run.ciphertext, encrypt, senderDigest, null, lease.senderScratch));
+            run.start(() -> run.crypt(run.ciphertext, run.decrypted, decrypt, null, receiverDigest, lease.receiverScratch));
+            long written = run.write(destination);
+
+            run.awaitStages();
+            return new Result(senderDigest.digest(), receiverDigest.digest(), written);
+        } catch (Exception e) {
+            run.fail(e);
+            run.awaitStages();
+            Throwable cause = run.failure.get();
+            throw cause instanceof Exception ? (Exception) cause : new IllegalStateException(cause);
+        } finally {
+            lease.reset();
+            leases.add(lease);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        stageThreads.shutdownNow();
+    }
+
+    // Pre-built buffers for one pipeline. Enough buffers that every ring can be full while
+    // each stage holds one in and one out, so stages never wait on each other for buffers.
+    private static class Lease {
+        final List<ByteBuffer> all = new ArrayList<>();
+        final BlockingQueue<ByteBuffer> free;
+        final byte[][] senderScratch;
+        final byte[][] receiverScratch;
+
+        Lease(int chunkSize, int ringDepth) {
+            // three rings of ringDepth + 1 (room for the end marker) plus one per stage
+            int count = 3 * (ringDepth + 1) + 4;
+            free = new ArrayBlockingQueue<>(count);
+            for (int i = 0; i < count; i++) {
+                all.add(ByteBuffer.allocateDirect(chunkSize + 2 * AES_BLOCK));
+            }
+            // JCE ciphers copy direct buffers through fresh temp arrays on every call;
+            // staging through our own arrays keeps the steady state allocation-free
+            senderScratch = new byte[][] {new byte[chunkSize + 2 * AES_BLOCK], new byte[chunkSize + 2 * AES_BLOCK]};
+            receiverScratch = new byte[][] {new byte[chunkSize + 2 * AES_BLOCK], new byte[chunkSize + 2 * AES_BLOCK]};
+            reset();
+        }
+
+        void reset() {
+            free.clear();
+            free.addAll(all);
+        }
+    }
+
+    private interface Stage {
+        void run() throws Exception;
+    }
+
+    // State of one pipeline execution
+    private class Run {
+        final Lease lease;
+        final BlockingQueue<ByteBuffer> plaintext = new ArrayBlockingQueue<>(ringDepth + 1);
+        final BlockingQueue<ByteBuffer> ciphertext = new ArrayBlockingQueue<>(ringDepth + 1);
+        final BlockingQueue<ByteBuffer> decrypted = new ArrayBlockingQueue<>(ringDepth + 1);
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        final CountDownLatch stagesDone = new CountDownLatch(3);
+        int started;
+
+        Run(Lease lease) {
+            this.lease = lease;
+        }
+
+        void start(Stage stage) {
+            started++;
+            stageThreads.execute(() -> {
+                try {
+                    stage.run();
+                } catch (Throwable t) {
+                    fail(t);
+                } finally {
+                    stagesDone.countDown();
+                }
+            });
+        }
+
+        void fail(Throwable t) {
+            failure.compareAndSet(null, t);
+        }
+
+        void awaitStages() throws InterruptedException {
+            for (int i = started; i < 3; i++) {
+                stagesDone.countDown();
+            }
+            stagesDone.await();
+        }
+
+        void read(Path source) throws Exception {
+            try (FileChannel channel = FileChannel.open(source, StandardOpenOption.READ)) {
+                while (true) {
+                    ByteBuffer buffer = take(lease.free);
+                    buffer.clear().limit(chunkSize);
+                    while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                        // keep filling until the chunk is full or the file ends
+                    }
+                    buffer.flip();
+                    if (!buffer.hasRemaining()) {
+                        lease.free.add(buffer);
+                        put(plaintext, END);
+                        return;
+                    }
+                    put(plaintext, buffer);
+                }
+            }
+        }
+
+        void crypt(BlockingQueue<ByteBuffer> in, BlockingQueue<ByteBuffer> out, Cipher cipher,
+                   MessageDigest inputDigest, MessageDigest outputDigest, byte[][] scratch) throws Exception {
+            byte[] input = scratch[0];
+            byte[] output = scratch[1];
+            while (true) {
+                ByteBuffer chunk = take(in);
+                int produced;
+                if (chunk == END) {
+                    produced = cipher.doFinal(output, 0);
+                } else {
+                    int length = chunk.remaining();
+                    chunk.get(input, 0, length);
+                    lease.free.add(chunk);
+                    if (inputDigest != null) {
+                        inputDigest.update(input, 0, length);
+                    }
+                    produced = cipher.update(input, 0, length, output, 0);
+                }
+                if (produced > 0) {
+                    if (outputDigest != null) {
+                        outputDigest.update(output, 0, produced);
+                    }
+                    ByteBuffer result = take(lease.free);
+                    result.clear();
+                    result.put(output, 0, produced).flip();
+                    put(out, result);
+                }
+                if (chunk == END) {
+                    put(out, END);
+                    return;
+                }
+            }
+        }
+
+        long write(Path destination) throws Exception {
+            long written = 0;
+            try (FileChannel channel = FileChannel.open(destination,
+                    StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                while (true) {
+                    ByteBuffer chunk = take(decrypted);
+                    if (chunk == END) {
+                        return written;
+                    }
+                    while (chunk.hasRemaining()) {
+                        written += channel.write(chunk);
+                    }
+                    lease.free.add(chunk);
+                }
+            }
+        }
+
+        // Ring hand-offs poll instead of blocking indefinitely, so a failure in any stage
+        // unwinds the others without interrupting threads
+        private ByteBuffer take(BlockingQueue<ByteBuffer> queue) throws Exception {
+            while (true) {
+                abortIfFailed();
+                ByteBuffer buffer = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (buffer != null) {
+                    return buffer;
+                }
+            }
+        }
+
+        private void put(BlockingQueue<ByteBuffer> queue, ByteBuffer buffer) throws Exception {
+            while (!queue.offer(buffer, POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+                abortIfFailed();
+            }
+        }
+
+        private void abortIfFailed() throws IOException {
+            if (failure.get() != null) {
+                throw new IOException("Transfer pipeline aborted");
+            }
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.securetransfer.service;
+
+import com.example.securetransfer.dto.TransferStatusResponse;
+import com.example.securetransfer.model.AuditEventType;
+import com.example.securetransfer.model.Transfer;
+import com.example.securetransfer.repository.TransferRepository;
+import com.example.securetransfer.util.BoundedCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Single place where a transfer's status changes after creation. Every transition is one
+ * targeted UPDATE, and each one invalidates the read-through cache that serves the status
+ * endpoint, so polling clients mostly never reach the database.
+ */
+@Service
+public class TransferStatusService {
+
+    private static final Logger log = LoggerFactory.getLogger(TransferStatusService.class);
+    private static final int STRIPES = 1024;
+
+    private final TransferRepository transferRepository;
+    private final ClusterService clusterService;
+    private final AuditService auditService;
+    private final BoundedCache<UUID, TransferStatusResponse> cache;
+
+    // Bumped on every invalidation. A reader only caches what it loaded if its stripe did not
+    // change meanwhile, so a load racing with a status change can't re-insert the old state.
+    private final AtomicLongArray invalidations = new AtomicLongArray(STRIPES);
+
+    public TransferStatusService(
+            TransferRepository transferRepository,
+            ClusterService clusterService,
+            AuditService auditService,
+            @Value("${transfer.status-cache.max-size:50000}") int maxSize,
+            @Value("${transfer.status-cache.ttl:10m}") Duration ttl) {
+        this.transferRepository = transferRepository;
+        this.clusterService = clusterService;
+        this.auditService = auditService;
+        this.cache = new BoundedCache<>(maxSize, ttl.toNanos());
+    }
+
+    public TransferStatusResponse getStatus(UUID id) {
+        TransferStatusResponse cached = cache.get(id);
+        if (cached != null) {
+            return cached;
+        }
+        int stripe = stripe(id);
+        long stamp = invalidations.get(stripe);
+        Transfer transfer = transferRepository.findById(id).orElse(null);
+        if (transfer == null) {
+            return null;
+        }
+        TransferStatusResponse loaded = toResponse(transfer);
+        // Status changes happen on the owning node, which is the only one that can invalidate;
+        // other nodes read transfers they don't own straight from the shared database
+        if (clusterService.isLocal(transfer.getStorageNode()) && invalidations.get(stripe) == stamp) {
+            cache.put(id, loaded);
+        }
+        return loaded;
+    }
+
+    // Newly inserted transfers go straight into the cache; the first poll follows right away
+    public void cacheCreated(Transfer transfer) {
+        cache.put(transfer.getId(), toResponse(transfer));
+    }
+
+    public void markCompleted(UUID id, String decryptedFileName) {
+        int updated = transferRepository.markCompleted(id, decryptedFileName, Instant.now());
+        invalidate(id);
+        if (updated == 0) {
+            log.warn("Transfer {} was no longer in progress when marking it completed", id);
+        }
+    }
+
+    public void markFailed(UUID id, String failureReason) {
+        transferRepository.markFailed(id, failureReason);
+        invalidate(id);
+    }
+
+    public void markDownloaded(UUID id) {
+        // Not part of the status response, so nothing to invalidate
+        transferRepository.markDownloaded(id, Instant.now());
+    }
+
+    public int markExpired(Collection<UUID> ids) {
+        int updated = transferRepository.markExpired(ids);
+        for (UUID id : ids) {
+            invalidate(id);
+            auditService.record(id, AuditEventType.EXPIRED, true, null, "Decrypted file removed");
+        }
+        return updated;
+    }
+
+    private void invalidate(UUID id) {
+        invalidations.incrementAndGet(stripe(id));
+        cache.invalidate(id);
+    }
+
+    private static int stripe(UUID id) {
+        return (id.hashCode() & 0x7fffffff) % STRIPES;
+    }
+
+    private static TransferStatusResponse toResponse(Transfer transfer) {
+        return TransferStatusResponse.builder()
+            .id(transfer.getId())
+            .sender(transfer.getSenderUsername())
+            .receiver(transfer.getReceiverUsername())
+            .fileName(transfer.getOriginalFileName())
+            .status(transfer.getStatus())
+            .failureReason(transfer.getFailureReason())
+            .createdAt(transfer.getCreatedAt())
+            .baseTransferId(transfer.getBaseTransferId())
+            .build();
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.securetransfer.util;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Size-bounded cache with per-entry expiry. Reads are plain {@link ConcurrentHashMap}
+ * lookups so hot paths never contend on a lock; when the cache grows past its bound,
+ * expired entries are dropped first and then arbitrary ones until it is back under the
+ * limit (approximate, not strict LRU).
+ */
+public class BoundedCache<K, V> {
+
+    private static class Entry<V> {
+        final V value;
+        final long expiresAtNanos;
+
+        Entry(V value, long expiresAtNanos) {
+            this.value = value;
+            this.expiresAtNanos = expiresAtNanos;
+        }
+    }
+
+    private final Map<K, Entry<V>> entries = new ConcurrentHashMap<>();
+    private final int maxSize;
+    private final long ttlNanos;
+
+    public BoundedCache(int maxSize, long ttlNanos) {
+        this.maxSize = maxSize;
+        this.ttlNanos = ttlNanos;
+    }
+
+    public V get(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.expiresAtNanos - System.nanoTime() < 0) {
+            entries.remove(key, entry);
+            return null;
+        }
+        return entry.value;
+    }
+
+    public V getOrLoad(K key, Function<K, V> loader) {
+        V value = get(key);
+        if (value == null) {
+            value = loader.apply(key);
+            if (value != null) {
+                put(key, value);
+            }
+        }
+        return value;
+    }
+
+    public void put(K key, V value) {
+        entries.put(key, new Entry<>(value, System.nanoTime() + ttlNanos));
+        if (entries.size() > maxSize) {
+            shrink();
+        }
+    }
+
+    public void invalidate(K key) {
+        entries.remove(key);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private void shrink() {
+        long now = System.nanoTime();
+        entries.values().removeIf(entry -> entry.expiresAtNanos - now < 0);
+        // Leave some headroom so a full cache doesn't rescan on every put
+        int target = maxSize - Math.max(1, maxSize / 10);
+        Iterator<K> keys = entries.keySet().iterator();
+        while (entries.size() > target && keys.hasNext()) {
+            keys.next();
+            keys.remove();
+        }
+    }
+}
@@ -12,12 +12,24 @@ public class CryptoUtils {
         return digest.digest(data);
     }
 
+    public static byte[] calculateSHA256Hash(byte[] data, int offset, int length) throws NoSuchAlgorithmException {
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        digest.update(data, offset, length);
+        return digest.digest();
+    }
+
     public static byte[] aesEncrypt(byte[] data, SecretKey key, IvParameterSpec iv) throws Exception {
         Cipher cipher = Cipher.getInstance("AES/CBC/PKCS5Padding");
         cipher.init(Cipher.ENCRYPT_MODE, key, iv);
         return cipher.doFinal(data);
     }
 
+    public static byte[] aesEncrypt(byte[] data, int offset, int length, SecretKey key, IvParameterSpec iv) throws Exception {
+        Cipher cipher = Cipher.getInstance("AES/CBC/PKCS5Padding");
+        cipher.init(Cipher.ENCRYPT_MODE, key, iv);
+        return cipher.doFinal(data, offset, length);
+    }
+
     public static byte[] aesDecrypt(byte[] encryptedData, SecretKey key, IvParameterSpec iv) throws Exception {
         Cipher cipher = Cipher.getInstance("AES/CBC/PKCS5Padding");
         cipher.init(Cipher.DECRYPT_MODE, key, iv);
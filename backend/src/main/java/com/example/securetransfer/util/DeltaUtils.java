@@ -0,0 +1,236 @@
+package com.example.securetransfer.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * rsync-style delta encoding. The receiver describes its copy of a file as a list of
+ * block signatures (a cheap rolling checksum plus a SHA-256 of each block); the sender
+ * slides a window over the new revision and only emits literal bytes for the regions
+ * that do not match any of those blocks.
+ */
+public class DeltaUtils {
+
+    public static final int DEFAULT_BLOCK_SIZE = 4096;
+
+    private static final int DELTA_MAGIC = 0x53464431; // "SFD1"
+    private static final byte OP_COPY = 1;
+    private static final byte OP_LITERAL = 2;
+
+    public static class BlockSignature {
+        private final int index;
+        private final int length;
+        private final int weak;
+        private final byte[] strong;
+
+        public BlockSignature(int index, int length, int weak, byte[] strong) {
+            this.index = index;
+            this.length = length;
+            this.weak = weak;
+            this.strong = strong;
+        }
+
+        public int getIndex() { return index; }
+        public int getLength() { return length; }
+        public int getWeak() { return weak; }
+        public byte[] getStrong() { return strong; }
+    }
+
+    public static List<BlockSignature> computeSignatures(byte[] base, int blockSize) throws NoSuchAlgorithmException {
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        List<BlockSignature> signatures = new ArrayList<>(base.length / blockSize + 1);
+        for (int offset = 0, index = 0; offset < base.length; offset += blockSize, index++) {
+            int length = Math.min(blockSize, base.length - offset);
+            digest.update(base, offset, length);
+            signatures.add(new BlockSignature(index, length, weakChecksum(base, offset, length), digest.digest()));
+        }
+        return signatures;
+    }
+
+    public static byte[] computeDelta(byte[] target, List<BlockSignature> signatures, int blockSize) throws NoSuchAlgorithmException, IOException {
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        Map<Integer, List<BlockSignature>> fullBlocks = new HashMap<>();
+        BlockSignature tailBlock = null;
+        for (BlockSignature signature : signatures) {
+            if (signature.getLength() == blockSize) {
+                fullBlocks.computeIfAbsent(signature.getWeak(), k -> new ArrayList<>(1)).add(signature);
+            } else {
+                tailBlock = signature;
+            }
+        }
+
+        DeltaWriter writer = new DeltaWriter(blockSize, target.length);
+        int n = target.length;
+        int pos = 0;
+        int literalStart = 0;
+        int a = 0;
+        int b = 0;
+        boolean windowValid = false;
+
+        while (pos + blockSize <= n) {
+            if (!windowValid) {
+                a = 0;
+                b = 0;
+                for (int i = 0; i < blockSize; i++) {
+                    int x = target[pos + i] & 0xff;
+                    a += x;
+                    b += (blockSize - i) * x;
+                }
+                windowValid = true;
+            }
+            List<BlockSignature> candidates = fullBlocks.get((a & 0xffff) | (b << 16));
+            if (candidates != null) {
+                digest.update(target, pos, blockSize);
+                byte[] strong = digest.digest();
+                BlockSignature match = findStrongMatch(candidates, strong);
+                if (match != null) {
+                    writer.literal(target, literalStart, pos - literalStart);
+                    writer.copy(match.getIndex());
+                    pos += blockSize;
+                    literalStart = pos;
+                    windowValid = false;
+                    continue;
+                }
+            }
+            if (pos + blockSize < n) {
+                int out = target[pos] & 0xff;
+                int in = target[pos + blockSize] & 0xff;
+                a += in - out;
+                b += a - blockSize * out;
+            }
+            pos++;
+        }
+
+        // The receiver's last block is usually shorter than blockSize, so it can only
+        // match the very end of the new revision.
+        if (tailBlock != null && n - literalStart >= tailBlock.getLength()) {
+            int tailStart = n - tailBlock.getLength();
+            if (weakChecksum(target, tailStart, tailBlock.getLength()) == tailBlock.getWeak()) {
+                digest.update(target, tailStart, tailBlock.getLength());
+                if (Arrays.equals(digest.digest(), tailBlock.getStrong())) {
+                    writer.literal(target, literalStart, tailStart - literalStart);
+                    writer.copy(tailBlock.getIndex());
+                    literalStart = n;
+                }
+            }
+        }
+        writer.literal(target, literalStart, n - literalStart);
+        return writer.toByteArray();
+    }
+
+    public static byte[] applyDelta(byte[] base, byte[] delta) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(delta));
+        if (in.readInt() != DELTA_MAGIC) {
+            throw new IOException("Not a delta payload");
+        }
+        int blockSize = in.readInt();
+        int targetLength = in.readInt();
+        byte[] result = new byte[targetLength];
+        int written = 0;
+        while (written < targetLength) {
+            byte op = in.readByte();
+            if (op == OP_COPY) {
+                long offset = (long) in.readInt() * blockSize;
+                int length = (int) Math.min(in.readInt(), base.length - offset);
+                if (offset < 0 || offset >= base.length || length < 0 || written + length > targetLength) {
+                    throw new IOException("Delta references data outside the base file");
+                }
+                System.arraycopy(base, (int) offset, result, written, length);
+                written += length;
+            } else if (op == OP_LITERAL) {
+                int length = in.readInt();
+                if (length < 0 || written + length > targetLength) {
+                    throw new IOException("Delta literal overruns the target length");
+                }
+                in.readFully(result, written, length);
+                written += length;
+            } else {
+                throw new IOException("Unknown delta instruction: " + op);
+            }
+        }
+        return result;
+    }
+
+    private static BlockSignature findStrongMatch(List<BlockSignature> candidates, byte[] strong) {
+        for (BlockSignature candidate : candidates) {
+            if (Arrays.equals(candidate.getStrong(), strong)) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    private static int weakChecksum(byte[] data, int offset, int length) {
+        int a = 0;
+        int b = 0;
+        for (int i = 0; i < length; i++) {
+            int x = data[offset + i] & 0xff;
+            a += x;
+            b += (length - i) * x;
+        }
+        return (a & 0xffff) | (b << 16);
+    }
+
+    // Encodes COPY/LITERAL instructions, merging runs of consecutive base blocks into one COPY.
+    private static class DeltaWriter {
+        private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        private final DataOutputStream out = new DataOutputStream(buffer);
+        private final int blockSize;
+        private int runStart = -1;
+        private int runBlocks;
+
+        DeltaWriter(int blockSize, int targetLength) throws IOException {
+            this.blockSize = blockSize;
+            out.writeInt(DELTA_MAGIC);
+            out.writeInt(blockSize);
+            out.writeInt(targetLength);
+        }
+
+        void copy(int blockIndex) throws IOException {
+            if (runStart >= 0 && runStart + runBlocks == blockIndex) {
+                runBlocks++;
+                return;
+            }
+            flushCopy();
+            runStart = blockIndex;
+            runBlocks = 1;
+        }
+
+        void literal(byte[] data, int offset, int length) throws IOException {
+            if (length == 0) {
+                return;
+            }
+            flushCopy();
+            out.writeByte(OP_LITERAL);
+            out.writeInt(length);
+            out.write(data, offset, length);
+        }
+
+        byte[] toByteArray() throws IOException {
+            flushCopy();
+            out.flush();
+            return buffer.toByteArray();
+        }
+
+        private void flushCopy() throws IOException {
+            if (runStart < 0) {
+                return;
+            }
+            out.writeByte(OP_COPY);
+            out.writeInt(runStart);
+            out.writeInt((int) Math.min((long) runBlocks * blockSize, Integer.MAX_VALUE));
+            runStart = -1;
+            runBlocks = 0;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.securetransfer.util;
+
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded lock-free ring for many producers and a single consumer. Producers claim a slot
+ * by advancing the tail with a CAS and then publish into it; the consumer takes published
+ * slots in order and frees them by advancing the head. A full ring rejects the offer
+ * instead of blocking, leaving the overflow policy to the caller.
+ */
+public class MpscRingBuffer<E> {
+
+    private final AtomicReferenceArray<E> slots;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong head = new AtomicLong();
+
+    public MpscRingBuffer(int capacity) {
+        // Power of two so a sequence maps to its slot with a mask
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.slots = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+    }
+
+    public boolean offer(E element) {
+        while (true) {
+            long sequence = tail.get();
+            if (sequence - head.get() >= slots.length()) {
+                return false;
+            }
+            if (tail.compareAndSet(sequence, sequence + 1)) {
+                slots.lazySet((int) sequence & mask, element);
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Moves up to {@code max} elements into {@code target}. Consumer thread only. Stops early
+     * at a slot that has been claimed but not yet published; it is picked up on the next call.
+     */
+    public int drainTo(Collection<? super E> target, int max) {
+        long sequence = head.get();
+        int drained = 0;
+        while (drained < max) {
+            int index = (int) sequence & mask;
+            E element = slots.get(index);
+            if (element == null) {
+                break;
+            }
+            slots.lazySet(index, null);
+            target.add(element);
+            sequence++;
+            drained++;
+        }
+        head.lazySet(sequence);
+        return drained;
+    }
+
+    public int size() {
+        return (int) Math.max(0, tail.get() - head.get());
+    }
+
+    public int capacity() {
+        return slots.length();
+    }
+}
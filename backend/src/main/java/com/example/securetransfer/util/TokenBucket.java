@@ -0,0 +1,72 @@
+package com.example.securetransfer.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket implemented as a generic cell rate algorithm: the whole state is a
+ * single "theoretical arrival time" updated with CAS, so concurrent callers never block
+ * each other and the time until the next token is available falls out of the arithmetic.
+ */
+public class TokenBucket {
+
+    private final double nanosPerToken;
+    private final long burstNanos;
+    private final AtomicLong theoreticalArrival;
+
+    public TokenBucket(long capacity, double tokensPerSecond) {
+        if (capacity <= 0 || tokensPerSecond <= 0) {
+            throw new IllegalArgumentException("Token bucket capacity and rate must be positive");
+        }
+        this.nanosPerToken = 1_000_000_000d / tokensPerSecond;
+        this.burstNanos = (long) (capacity * nanosPerToken);
+        this.theoreticalArrival = new AtomicLong(System.nanoTime());
+    }
+
+    /**
+     * Takes {@code tokens} if they are available.
+     *
+     * @return 0 on success, otherwise the number of nanoseconds until they would be
+     */
+    public long tryAcquire(long tokens) {
+        long cost = (long) (tokens * nanosPerToken);
+        while (true) {
+            long now = System.nanoTime();
+            long tat = theoreticalArrival.get();
+            long next = Math.max(tat, now) + cost;
+            long wait = next - now - burstNanos;
+            if (wait > 0) {
+                return wait;
+            }
+            if (theoreticalArrival.compareAndSet(tat, next)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Takes {@code tokens} as long as the bucket is not already overdrawn past its capacity,
+     * even if that overdraws it. For costs known up front that may exceed the capacity (an
+     * upload's size); the debt holds back later requests until it has been repaid.
+     *
+     * @return 0 on success, otherwise the number of nanoseconds until the debt is repaid
+     */
+    public long tryReserve(long tokens) {
+        long cost = (long) (tokens * nanosPerToken);
+        while (true) {
+            long now = System.nanoTime();
+            long tat = theoreticalArrival.get();
+            long wait = tat - now - burstNanos;
+            if (wait > 0) {
+                return wait;
+            }
+            if (theoreticalArrival.compareAndSet(tat, Math.max(tat, now) + cost)) {
+                return 0;
+            }
+        }
+    }
+
+    // A bucket that has refilled completely carries no state worth keeping
+    public boolean isFull() {
+        return theoreticalArrival.get() <= System.nanoTime();
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.securetransfer.benchmark;
+
+import com.example.securetransfer.SecureTransferProdApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Boots the application in-process for benchmarks: random port, private in-memory H2
+ * database, temporary storage directory and a throwaway JWT key, so a run needs nothing
+ * outside the JVM. Command-line arguments ({@code --name=value}) override any default.
+ */
+final class BenchmarkSupport {
+
+    private static final Pattern TOKEN = Pattern.compile("\"token\"\\s*:\\s*\"([^\"]+)\"");
+
+    private BenchmarkSupport() {}
+
+    static ConfigurableApplicationContext startApplication(String[] args, Path storageDir) {
+        return startApplication(args, storageDir, Map.of());
+    }
+
+    // extraDefaults replace the defaults below; command-line arguments still win over both
+    static ConfigurableApplicationContext startApplication(String[] args, Path storageDir, Map<String, Object> extraDefaults) {
+        byte[] jwtKey = new byte[32];
+        new SecureRandom().nextBytes(jwtKey);
+
+        Map<String, Object> defaults = new HashMap<>();
+        defaults.put("server.port", "0");
+        defaults.put("spring.datasource.url", "jdbc:h2:mem:benchmark-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        // The security chain's H2 console matcher needs the console configured
+        defaults.put("spring.h2.console.enabled", "true");
+        defaults.put("spring.jpa.hibernate.ddl-auto", "update");
+        defaults.put("spring.jpa.show-sql", "false");
+        defaults.put("jwt.secret.key", Base64.getEncoder().encodeToString(jwtKey));
+        defaults.put("file.storage.location", storageDir.toString());
+        defaults.put("spring.servlet.multipart.max-file-size", "2GB");
+        defaults.put("spring.servlet.multipart.max-request-size", "2GB");
+        defaults.put("ratelimit.enabled", "false");
+        defaults.put("logging.level.root", "WARN");
+        defaults.put("logging.level.com.example.securetransfer.benchmark", "INFO");
+        defaults.putAll(extraDefaults);
+
+        return new SpringApplicationBuilder(SecureTransferProdApplication.class)
+                .properties(defaults)
+                .run(args);
+    }
+
+    static String baseUrl(ConfigurableApplicationContext context) {
+        return "http://localhost:" + context.getEnvironment().getProperty("local.server.port") + "/api";
+    }
+
+    static int intProperty(ConfigurableApplicationContext context, String name, int defaultValue) {
+        return context.getEnvironment().getProperty(name, Integer.class, defaultValue);
+    }
+
+    static HttpResponse<String> postLogin(HttpClient client, String baseUrl, String username, String password)
+            throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/auth/login"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(
+                        "{\"username\":\"" + username + "\",\"password\":\"" + password + "\"}"))
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    static String extractToken(String loginResponseBody) {
+        Matcher matcher = TOKEN.matcher(loginResponseBody);
+        if (!matcher.find()) {
+            throw new IllegalStateException("No token in login response: " + loginResponseBody);
+        }
+        return matcher.group(1);
+    }
+
+    static void deleteRecursively(Path root) {
+        try (Stream<Path> paths = Files.walk(root)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        } catch (IOException ignored) {
+            // Best effort; it is a temp directory
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.securetransfer.benchmark;
+
+import java.util.Arrays;
+
+/**
+ * Collects raw latency samples (nanoseconds) and reports exact percentiles. Benchmarks
+ * record at most a few hundred thousand samples, so keeping them all is cheaper and more
+ * honest than a histogram.
+ */
+final class LatencyRecorder {
+
+    private final String name;
+    private long[] samples = new long[1024];
+    private int count;
+
+    LatencyRecorder(String name) {
+        this.name = name;
+    }
+
+    synchronized void record(long nanos) {
+        if (count == samples.length) {
+            samples = Arrays.copyOf(samples, count * 2);
+        }
+        samples[count++] = nanos;
+    }
+
+    synchronized int count() {
+        return count;
+    }
+
+    synchronized double percentileMillis(double quantile) {
+        if (count == 0) {
+            return 0;
+        }
+        long[] sorted = Arrays.copyOf(samples, count);
+        Arrays.sort(sorted);
+        return percentile(sorted, quantile) / 1e6;
+    }
+
+    synchronized String summary() {
+        if (count == 0) {
+            return String.format("%-14s no samples", name);
+        }
+        long[] sorted = Arrays.copyOf(samples, count);
+        Arrays.sort(sorted);
+        double sum = 0;
+        for (long sample : sorted) {
+            sum += sample;
+        }
+        return String.format("%-14s n=%-7d mean=%8.2fms p50=%8.2fms p99=%8.2fms p999=%8.2fms max=%8.2fms",
+                name, count, sum / count / 1e6,
+                percentile(sorted, 0.50) / 1e6, percentile(sorted, 0.99) / 1e6,
+                percentile(sorted, 0.999) / 1e6, sorted[count - 1] / 1e6);
+    }
+
+    private static double percentile(long[] sorted, double quantile) {
+        int index = (int) Math.ceil(quantile * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+}
@@ -0,0 +1,367 @@
+package com.example.securetransfer.benchmark;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayOutputStream;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * End-to-end load test. Boots the backend in-process and drives it over HTTP the way the
+ * frontend does: simulated senders log in, upload files, poll the status endpoint until
+ * the transfer is terminal, and the receiver downloads the result. Reports latency per
+ * phase, throughput, and heap/GC activity for the whole JVM (server and load generator).
+ *
+ * <pre>
+ * mvn -Pbenchmark verify -Dspring-boot.run.arguments="--loadtest.transfers=500 --loadtest.sizes=uniform:4KB-4MB"
+ * </pre>
+ *
+ * Settings:
+ * <ul>
+ *   <li>{@code loadtest.transfers} (200), {@code loadtest.concurrency} (8),
+ *       {@code loadtest.warmup-transfers} (20)</li>
+ *   <li>{@code loadtest.sizes}: {@code fixed:64KB}, {@code uniform:1KB-1MB} or a weighted
+ *       {@code mix:4KB@70,1MB@25,16MB@5} (default {@code uniform:1KB-1MB})</li>
+ *   <li>{@code loadtest.poll-interval-ms} (10), {@code loadtest.download} (true)</li>
+ *   <li>{@code loadtest.min-transfers-per-second} and {@code loadtest.max-p99-ms}: optional
+ *       gates; the run exits non-zero if they are missed or any transfer fails</li>
+ * </ul>
+ */
+public class LoadTestHarness {
+
+    // The demo users are the ones with key pairs; each sends to the next one
+    private static final String[][] PARTIES = {
+            {"alice", "alice123", "bob"},
+            {"bob", "bob123", "charlie"},
+            {"charlie", "charlie123", "alice"}
+    };
+    private static final Pattern STATUS = Pattern.compile("\"status\"\\s*:\\s*\"([A-Z]+)\"");
+    private static final Pattern TRANSFER_ID = Pattern.compile("\"transferId\"\\s*:\\s*\"([^\"]+)\"");
+
+    public static void main(String[] args) throws Exception {
+        Path storageDir = Files.createTempDirectory("sft-loadtest-");
+        ConfigurableApplicationContext context = BenchmarkSupport.startApplication(args, storageDir);
+        int exitCode = 1;
+        try {
+            exitCode = new LoadTestHarness(context).run();
+        } finally {
+            SpringApplication.exit(context);
+            BenchmarkSupport.deleteRecursively(storageDir);
+            System.exit(exitCode);
+        }
+    }
+
+    private final ConfigurableApplicationContext context;
+    private final String baseUrl;
+    private final HttpClient client;
+    private final Map<String, String> tokens = new ConcurrentHashMap<>();
+    private final byte[] payloadSource;
+
+    private final LatencyRecorder login = new LatencyRecorder("login");
+    private final LatencyRecorder upload = new LatencyRecorder("upload");
+    private final LatencyRecorder processing = new LatencyRecorder("processing");
+    private final LatencyRecorder download = new LatencyRecorder("download");
+    private final LatencyRecorder endToEnd = new LatencyRecorder("end-to-end");
+    private final AtomicLong bytesTransferred = new AtomicLong();
+    private final AtomicInteger failures = new AtomicInteger();
+
+    private LoadTestHarness(ConfigurableApplicationContext context) {
+        this.context = context;
+        this.baseUrl = BenchmarkSupport.baseUrl(context);
+        this.client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build();
+        // Uploads are random slices of one buffer, so generating payloads costs nothing per transfer
+        this.payloadSource = new byte[Math.toIntExact(sizes().max + 1)];
+        new Random(42).nextBytes(payloadSource);
+    }
+
+    private int run() throws Exception {
+        int transfers = BenchmarkSupport.intProperty(context, "loadtest.transfers", 200);
+        int concurrency = BenchmarkSupport.intProperty(context, "loadtest.concurrency", 8);
+        int warmup = BenchmarkSupport.intProperty(context, "loadtest.warmup-transfers", 20);
+        SizeDistribution sizes = sizes();
+
+        System.out.printf("%nLoad test: %d transfers, concurrency %d, sizes %s%n",
+                transfers, concurrency, context.getEnvironment().getProperty("loadtest.sizes", "uniform:1KB-1MB"));
+
+        for (String[] party : PARTIES) {
+            long start = System.nanoTime();
+            HttpResponse<String> response = BenchmarkSupport.postLogin(client, baseUrl, party[0], party[1]);
+            login.record(System.nanoTime() - start);
+            tokens.put(party[0], BenchmarkSupport.extractToken(response.body()));
+        }
+
+        runTransfers(warmup, concurrency, sizes, true);
+        bytesTransferred.set(0);
+        failures.set(0);
+
+        GcSnapshot gcBefore = GcSnapshot.take();
+        long heapPeak = resetHeapPeak();
+        long wallNanos = runTransfers(transfers, concurrency, sizes, false);
+        GcSnapshot gcAfter = GcSnapshot.take();
+        heapPeak = Math.max(heapPeak, heapPeak());
+
+        double seconds = wallNanos / 1e9;
+        double transfersPerSecond = (transfers - failures.get()) / seconds;
+        System.out.println(login.summary());
+        System.out.println(upload.summary());
+        System.out.println(processing.summary());
+        System.out.println(download.summary());
+        System.out.println(endToEnd.summary());
+        System.out.printf("throughput     transfers/s=%.1f MB/s=%.2f failures=%d wall=%.1fs%n",
+                transfersPerSecond, bytesTransferred.get() / 1e6 / seconds, failures.get(), seconds);
+        System.out.printf("memory         heap-peak=%.1fMB heap-max=%.1fMB gc-count=%d gc-time=%dms%n",
+                heapPeak / 1e6, Runtime.getRuntime().maxMemory() / 1e6,
+                gcAfter.count - gcBefore.count, gcAfter.timeMillis - gcBefore.timeMillis);
+
+        return checkGates(transfersPerSecond);
+    }
+
+    private int checkGates(double transfersPerSecond) {
+        int exitCode = 0;
+        if (failures.get() > 0) {
+            System.out.printf("GATE FAILED: %d transfers failed%n", failures.get());
+            exitCode = 1;
+        }
+        Double minRate = context.getEnvironment().getProperty("loadtest.min-transfers-per-second", Double.class);
+        if (minRate != null && transfersPerSecond < minRate) {
+            System.out.printf("GATE FAILED: %.1f transfers/s is below %.1f%n", transfersPerSecond, minRate);
+            exitCode = 1;
+        }
+        Double maxP99 = context.getEnvironment().getProperty("loadtest.max-p99-ms", Double.class);
+        if (maxP99 != null && endToEnd.percentileMillis(0.99) > maxP99) {
+            System.out.printf("GATE FAILED: end-to-end p99 %.1fms is above %.1fms%n", endToEnd.percentileMillis(0.99), maxP99);
+            exitCode = 1;
+        }
+        return exitCode;
+    }
+
+    private long runTransfers(int count, int concurrency, SizeDistribution sizes, boolean warmup) throws InterruptedException {
+        ExecutorService senders = Executors.newFixedThreadPool(concurrency);
+        AtomicInteger remaining = new AtomicInteger(count);
+        long start = System.nanoTime();
+        for (int i = 0; i < concurrency; i++) {
+            String[] party = PARTIES[i % PARTIES.length];
+            senders.execute(() -> {
+                while (remaining.getAndDecrement() > 0) {
+                    try {
+                        transferOnce(party[0], party[2], (int) sizes.next(), warmup);
+                    } catch (Exception e) {
+                        failures.incrementAndGet();
+                        System.err.println("Transfer failed: " + e);
+                    }
+                }
+            });
+        }
+        senders.shutdown();
+        senders.awaitTermination(1, TimeUnit.HOURS);
+        return System.nanoTime() - start;
+    }
+
+    private void transferOnce(String sender, String receiver, int size, boolean warmup) throws Exception {
+        long start = System.nanoTime();
+
+        // Upload
+        String boundary = "----loadtest" + UUID.randomUUID();
+        HttpRequest uploadRequest = HttpRequest.newBuilder(URI.create(baseUrl + "/transfers"))
+                .header("Authorization", "Bearer " + tokens.get(sender))
+                .header("Content-Type", "multipart/form-data; boundary=" + boundary)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(multipartBody(boundary, receiver, size)))
+                .build();
+        HttpResponse<String> uploadResponse = client.send(uploadRequest, HttpResponse.BodyHandlers.ofString());
+        long uploaded = System.nanoTime();
+        // 201 when the small-file path has already finished the transfer, 202 when it is queued;
+        // a transfer the small-file path failed is answered with 422 and counts as a failure
+        if (uploadResponse.statusCode() != 201 && uploadResponse.statusCode() != 202) {
+            throw new IllegalStateException("Upload returned " + uploadResponse.statusCode());
+        }
+        String transferId = match(TRANSFER_ID, uploadResponse.body());
+
+        // Poll until terminal
+        long pollInterval = BenchmarkSupport.intProperty(context, "loadtest.poll-interval-ms", 10);
+        HttpRequest statusRequest = HttpRequest.newBuilder(URI.create(baseUrl + "/transfers/" + transferId))
+                .header("Authorization", "Bearer " + tokens.get(sender))
+                .build();
+        String status = match(STATUS, uploadResponse.body());
+        while (status.equals("PENDING") || status.equals("PROCESSING")) {
+            Thread.sleep(pollInterval);
+            status = match(STATUS, client.send(statusRequest, HttpResponse.BodyHandlers.ofString()).body());
+        }
+        long processed = System.nanoTime();
+        if (!status.equals("COMPLETED")) {
+            throw new IllegalStateException("Transfer " + transferId + " ended " + status);
+        }
+
+        // Download as the receiver
+        long downloaded = processed;
+        if (context.getEnvironment().getProperty("loadtest.download", Boolean.class, true)) {
+            HttpRequest downloadRequest = HttpRequest.newBuilder(URI.create(baseUrl + "/transfers/" + transferId + "/content"))
+                    .header("Authorization", "Bearer " + tokens.get(receiver))
+                    .build();
+            HttpResponse<byte[]> downloadResponse = client.send(downloadRequest, HttpResponse.BodyHandlers.ofByteArray());
+            downloaded = System.nanoTime();
+            if (downloadResponse.statusCode() != 200 || downloadResponse.body().length != size) {
+                throw new IllegalStateException("Download of " + transferId + " returned " + downloadResponse.statusCode());
+            }
+        }
+
+        if (!warmup) {
+            upload.record(uploaded - start);
+            processing.record(processed - uploaded);
+            download.record(downloaded - processed);
+            endToEnd.record(downloaded - start);
+            bytesTransferred.addAndGet(size);
+        }
+    }
+
+    private byte[] multipartBody(String boundary, String receiver, int size) {
+        ByteArrayOutputStream body = new ByteArrayOutputStream(size + 512);
+        String head = "--" + boundary + "\r\n"
+                + "Content-Disposition: form-data; name=\"receiver\"\r\n\r\n" + receiver + "\r\n"
+                + "--" + boundary + "\r\n"
+                + "Content-Disposition: form-data; name=\"file\"; filename=\"load-" + size + ".bin\"\r\n"
+                + "Content-Type: application/octet-stream\r\n\r\n";
+        body.writeBytes(head.getBytes(StandardCharsets.US_ASCII));
+        int offset = ThreadLocalRandom.current().nextInt(payloadSource.length - size);
+        body.write(payloadSource, offset, size);
+        body.writeBytes(("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.US_ASCII));
+        return body.toByteArray();
+    }
+
+    private static String match(Pattern pattern, String body) {
+        Matcher matcher = pattern.matcher(body);
+        if (!matcher.find()) {
+            throw new IllegalStateException("Unexpected response: " + body);
+        }
+        return matcher.group(1);
+    }
+
+    // --- File size distributions ---
+
+    private SizeDistribution sizes() {
+        return SizeDistribution.parse(context.getEnvironment().getProperty("loadtest.sizes", "uniform:1KB-1MB"));
+    }
+
+    static class SizeDistribution {
+        final LongSupplier sampler;
+        final long max;
+
+        private SizeDistribution(LongSupplier sampler, long max) {
+            this.sampler = sampler;
+            this.max = max;
+        }
+
+        long next() {
+            return sampler.getAsLong();
+        }
+
+        static SizeDistribution parse(String spec) {
+            String[] kindAndArgs = spec.split(":", 2);
+            switch (kindAndArgs[0]) {
+                case "fixed": {
+                    long size = DataSize.parse(kindAndArgs[1]).toBytes();
+                    return new SizeDistribution(() -> size, size);
+                }
+                case "uniform": {
+                    String[] range = kindAndArgs[1].split("-");
+                    long min = DataSize.parse(range[0]).toBytes();
+                    long max = DataSize.parse(range[1]).toBytes();
+                    return new SizeDistribution(() -> ThreadLocalRandom.current().nextLong(min, max + 1), max);
+                }
+                case "mix": {
+                    String[] entries = kindAndArgs[1].split(",");
+                    long[] sizes = new long[entries.length];
+                    int[] cumulativeWeights = new int[entries.length];
+                    int total = 0;
+                    long max = 0;
+                    for (int i = 0; i < entries.length; i++) {
+                        String[] sizeAndWeight = entries[i].split("@");
+                        sizes[i] = DataSize.parse(sizeAndWeight[0]).toBytes();
+                        max = Math.max(max, sizes[i]);
+                        total += sizeAndWeight.length > 1 ? Integer.parseInt(sizeAndWeight[1]) : 1;
+                        cumulativeWeights[i] = total;
+                    }
+                    int totalWeight = total;
+                    return new SizeDistribution(() -> {
+                        int pick = ThreadLocalRandom.current().nextInt(totalWeight);
+                        for (int i = 0; i < cumulativeWeights.length; i++) {
+                            if (pick < cumulativeWeights[i]) {
+                                return sizes[i];
+                            }
+                        }
+                        return sizes[sizes.length - 1];
+                    }, max);
+                }
+                default:
+                    throw new IllegalArgumentException("Unknown size distribution: " + spec);
+            }
+        }
+    }
+
+    // --- Heap and GC statistics ---
+
+    private static long resetHeapPeak() {
+        long used = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pool.resetPeakUsage();
+                used += pool.getUsage().getUsed();
+            }
+        }
+        return used;
+    }
+
+    private static long heapPeak() {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                peak += pool.getPeakUsage().getUsed();
+            }
+        }
+        return peak;
+    }
+
+    private static class GcSnapshot {
+        final long count;
+        final long timeMillis;
+
+        private GcSnapshot(long count, long timeMillis) {
+            this.count = count;
+            this.timeMillis = timeMillis;
+        }
+
+        static GcSnapshot take() {
+            long count = 0;
+            long time = 0;
+            for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+                count += Math.max(0, gc.getCollectionCount());
+                time += Math.max(0, gc.getCollectionTime());
+            }
+            return new GcSnapshot(count, time);
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.example.securetransfer.benchmark;
+
+import com.example.securetransfer.model.User;
+import com.example.securetransfer.repository.UserRepository;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Measures login throughput against the JPA user store, plus the cost of authenticating
+ * a JWT request once the user is in the {@code UserDetails} cache.
+ *
+ * <pre>
+ * mvn -Pbenchmark verify -Dbenchmark.class=com.example.securetransfer.benchmark.LoginThroughputBenchmark \
+ *     -Dspring-boot.run.arguments="--benchmark.users=5000 --benchmark.concurrency=64"
+ * </pre>
+ *
+ * Settings: {@code benchmark.users} (1000), {@code benchmark.logins} (2000),
+ * {@code benchmark.concurrency} (32), {@code benchmark.authenticated-requests} (20000).
+ */
+public class LoginThroughputBenchmark {
+
+    private static final String PASSWORD = "benchmark-password";
+
+    public static void main(String[] args) throws Exception {
+        Path storageDir = Files.createTempDirectory("sft-benchmark-");
+        ConfigurableApplicationContext context = BenchmarkSupport.startApplication(args, storageDir);
+        try {
+            int users = BenchmarkSupport.intProperty(context, "benchmark.users", 1000);
+            int logins = BenchmarkSupport.intProperty(context, "benchmark.logins", 2000);
+            int concurrency = BenchmarkSupport.intProperty(context, "benchmark.concurrency", 32);
+            int authenticatedRequests = BenchmarkSupport.intProperty(context, "benchmark.authenticated-requests", 20000);
+
+            createUsers(context, users);
+            String baseUrl = BenchmarkSupport.baseUrl(context);
+            HttpClient client = HttpClient.newBuilder().executor(Executors.newFixedThreadPool(concurrency)).build();
+
+            int verificationThreads = BenchmarkSupport.intProperty(context, "auth.password-verification.threads", 0);
+            System.out.printf("%nLogin benchmark: %d users, %d logins, concurrency %d, %d password verification threads%n",
+                    users, logins, concurrency,
+                    verificationThreads > 0 ? verificationThreads : Runtime.getRuntime().availableProcessors());
+
+            // Warm up JIT, connection pool and the user cache
+            runLogins(client, baseUrl, users, Math.min(200, logins), concurrency, new LatencyRecorder("warmup"), new ConcurrentHashMap<>());
+
+            LatencyRecorder loginLatency = new LatencyRecorder("login");
+            Map<Integer, AtomicInteger> statuses = new ConcurrentHashMap<>();
+            long loginNanos = runLogins(client, baseUrl, users, logins, concurrency, loginLatency, statuses);
+
+            String token = BenchmarkSupport.extractToken(BenchmarkSupport.postLogin(client, baseUrl, "user0", PASSWORD).body());
+            LatencyRecorder authLatency = new LatencyRecorder("jwt-request");
+            long authNanos = runAuthenticatedRequests(client, baseUrl, token, authenticatedRequests, concurrency, authLatency);
+
+            System.out.println(loginLatency.summary());
+            System.out.printf("  logins/s=%.1f statuses=%s%n", logins / (loginNanos / 1e9), statuses);
+            System.out.println(authLatency.summary());
+            System.out.printf("  requests/s=%.1f%n", authenticatedRequests / (authNanos / 1e9));
+        } finally {
+            int exitCode = SpringApplication.exit(context);
+            BenchmarkSupport.deleteRecursively(storageDir);
+            System.exit(exitCode);
+        }
+    }
+
+    private static void createUsers(ConfigurableApplicationContext context, int count) {
+        UserRepository userRepository = context.getBean(UserRepository.class);
+        // One hash for everyone: encoding thousands of BCrypt hashes would dominate setup time
+        String passwordHash = context.getBean(PasswordEncoder.class).encode(PASSWORD);
+        List<User> batch = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            User user = new User();
+            user.setId(UUID.randomUUID());
+            user.setUsername("user" + i);
+            user.setPasswordHash(passwordHash);
+            user.setRole("USER");
+            user.setEnabled(true);
+            user.setCreatedAt(Instant.now());
+            batch.add(user);
+        }
+        userRepository.saveAll(batch);
+    }
+
+    private static long runLogins(HttpClient client, String baseUrl, int users, int logins, int concurrency,
+                                  LatencyRecorder latency, Map<Integer, AtomicInteger> statuses) throws InterruptedException {
+        return runConcurrently(logins, concurrency, () -> {
+            String username = "user" + ThreadLocalRandom.current().nextInt(users);
+            long start = System.nanoTime();
+            HttpResponse<String> response = BenchmarkSupport.postLogin(client, baseUrl, username, PASSWORD);
+            latency.record(System.nanoTime() - start);
+            statuses.computeIfAbsent(response.statusCode(), k -> new AtomicInteger()).incrementAndGet();
+        });
+    }
+
+    private static long runAuthenticatedRequests(HttpClient client, String baseUrl, String token, int requests,
+                                                 int concurrency, LatencyRecorder latency) throws InterruptedException {
+        return runConcurrently(requests, concurrency, () -> {
+            // Unknown transfer ID: authenticates through the JWT filter, then a 404
+            HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/transfers/" + UUID.randomUUID()))
+                    .header("Authorization", "Bearer " + token)
+                    .build();
+            long start = System.nanoTime();
+            client.send(request, HttpResponse.BodyHandlers.discarding());
+            latency.record(System.nanoTime() - start);
+        });
+    }
+
+    interface Task {
+        void run() throws Exception;
+    }
+
+    private static long runConcurrently(int iterations, int concurrency, Task task) throws InterruptedException {
+        ExecutorService workers = Executors.newFixedThreadPool(concurrency);
+        AtomicInteger remaining = new AtomicInteger(iterations);
+        long start = System.nanoTime();
+        for (int i = 0; i < concurrency; i++) {
+            workers.execute(() -> {
+                while (remaining.getAndDecrement() > 0) {
+                    try {
+                        task.run();
+                    } catch (Exception e) {
+                        System.err.println("Request failed: " + e);
+                    }
+                }
+            });
+        }
+        workers.shutdown();
+        workers.awaitTermination(1, TimeUnit.HOURS);
+        return System.nanoTime() - start;
+    }
+}
@@ -0,0 +1,178 @@
+package com.example.securetransfer.benchmark;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayOutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Latency and throughput of 1-64 KB transfers, with the small-file fast path switched off
+ * ("disk": every upload is stored, read back and processed asynchronously) and on
+ * ("memory": the default threshold). Each mode gets its own freshly started backend.
+ * Latency is measured from the start of the upload until the transfer is reported
+ * COMPLETED, by the upload response itself or by the status endpoint.
+ *
+ * <pre>
+ * mvn -Pbenchmark verify -Dbenchmark.class=com.example.securetransfer.benchmark.SmallFileBenchmark \
+ *     -Dspring-boot.run.arguments="--benchmark.transfers=1000 --benchmark.concurrency=16"
+ * </pre>
+ *
+ * Settings: {@code benchmark.sizes} (1KB,4KB,16KB,64KB), {@code benchmark.transfers} per
+ * size (300), {@code benchmark.concurrency} (8), {@code benchmark.modes} (disk,memory).
+ */
+public class SmallFileBenchmark {
+
+    private static final Pattern TRANSFER_ID = Pattern.compile("\"transferId\"\\s*:\\s*\"([^\"]+)\"");
+    private static final Pattern STATUS = Pattern.compile("\"status\"\\s*:\\s*\"([A-Z]+)\"");
+    private static final Map<String, Map<String, Object>> MODES = Map.of(
+            // No buffers rather than a 0B threshold, which would also send the multipart parts to temp files
+            "disk", Map.of("transfer.small-file.memory-budget", "0B"),
+            "memory", Map.of());
+
+    public static void main(String[] args) throws Exception {
+        List<String> results = new ArrayList<>();
+        int exitCode = 0;
+        String modes = "disk,memory";
+        for (String arg : args) {
+            if (arg.startsWith("--benchmark.modes=")) {
+                modes = arg.substring("--benchmark.modes=".length());
+            }
+        }
+        for (String mode : modes.split(",")) {
+            Path storageDir = Files.createTempDirectory("sft-benchmark-");
+            ConfigurableApplicationContext context = BenchmarkSupport.startApplication(args, storageDir, MODES.get(mode.trim()));
+            try {
+                exitCode |= new SmallFileBenchmark(context).run(mode.trim(), results);
+            } finally {
+                SpringApplication.exit(context);
+                BenchmarkSupport.deleteRecursively(storageDir);
+            }
+        }
+        System.out.printf("%nSmall-file transfers (upload until COMPLETED)%n");
+        System.out.printf("%-7s %7s %12s %9s %9s %9s %9s%n", "mode", "size", "transfers/s", "p50 ms", "p99 ms", "max ms", "failures");
+        results.forEach(System.out::println);
+        System.exit(exitCode);
+    }
+
+    private final ConfigurableApplicationContext context;
+    private final String baseUrl;
+    private final HttpClient client = HttpClient.newHttpClient();
+    private final byte[] payload = new byte[64 * 1024];
+
+    private SmallFileBenchmark(ConfigurableApplicationContext context) {
+        this.context = context;
+        this.baseUrl = BenchmarkSupport.baseUrl(context);
+        new Random(42).nextBytes(payload);
+    }
+
+    private int run(String mode, List<String> results) throws Exception {
+        int transfers = BenchmarkSupport.intProperty(context, "benchmark.transfers", 300);
+        int concurrency = BenchmarkSupport.intProperty(context, "benchmark.concurrency", 8);
+        String sizes = context.getEnvironment().getProperty("benchmark.sizes", "1KB,4KB,16KB,64KB");
+        String token = BenchmarkSupport.extractToken(BenchmarkSupport.postLogin(client, baseUrl, "alice", "alice123").body());
+
+        // Warm up JIT, connection pool and caches on the largest size
+        runTransfers(token, 64 * 1024, Math.min(100, transfers), concurrency, new LatencyRecorder("warmup"), new AtomicInteger());
+
+        int exitCode = 0;
+        for (String sizeSpec : sizes.split(",")) {
+            int size = (int) Math.min(DataSize.parse(sizeSpec.trim()).toBytes(), payload.length);
+            LatencyRecorder latency = new LatencyRecorder(mode + "-" + sizeSpec.trim());
+            AtomicInteger failures = new AtomicInteger();
+            long wallNanos = runTransfers(token, size, transfers, concurrency, latency, failures);
+            results.add(String.format("%-7s %7s %12.1f %9.2f %9.2f %9.2f %9d", mode, sizeSpec.trim(),
+                    (transfers - failures.get()) / (wallNanos / 1e9),
+                    latency.percentileMillis(0.5), latency.percentileMillis(0.99), latency.percentileMillis(1.0), failures.get()));
+            if (failures.get() > 0) {
+                exitCode = 1;
+            }
+        }
+        return exitCode;
+    }
+
+    private long runTransfers(String token, int size, int count, int concurrency, LatencyRecorder latency,
+                              AtomicInteger failures) throws InterruptedException {
+        ExecutorService senders = Executors.newFixedThreadPool(concurrency);
+        AtomicInteger remaining = new AtomicInteger(count);
+        long start = System.nanoTime();
+        for (int i = 0; i < concurrency; i++) {
+            senders.execute(() -> {
+                while (remaining.getAndDecrement() > 0) {
+                    try {
+                        long begin = System.nanoTime();
+                        transferOnce(token, size);
+                        latency.record(System.nanoTime() - begin);
+                    } catch (Exception e) {
+                        failures.incrementAndGet();
+                        System.err.println("Transfer failed: " + e);
+                    }
+                }
+            });
+        }
+        senders.shutdown();
+        senders.awaitTermination(1, TimeUnit.HOURS);
+        return System.nanoTime() - start;
+    }
+
+    private void transferOnce(String token, int size) throws Exception {
+        String boundary = "----smallfile" + UUID.randomUUID();
+        ByteArrayOutputStream body = new ByteArrayOutputStream(size + 512);
+        body.writeBytes(("--" + boundary + "\r\n"
+                + "Content-Disposition: form-data; name=\"receiver\"\r\n\r\nbob\r\n"
+                + "--" + boundary + "\r\n"
+                + "Content-Disposition: form-data; name=\"file\"; filename=\"small-" + size + ".bin\"\r\n"
+                + "Content-Type: application/octet-stream\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+        body.write(payload, 0, size);
+        body.writeBytes(("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.US_ASCII));
+
+        HttpRequest upload = HttpRequest.newBuilder(URI.create(baseUrl + "/transfers"))
+                .header("Authorization", "Bearer " + token)
+                .header("Content-Type", "multipart/form-data; boundary=" + boundary)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body.toByteArray()))
+                .build();
+        HttpResponse<String> response = client.send(upload, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 201 && response.statusCode() != 202) {
+            throw new IllegalStateException("Upload returned " + response.statusCode());
+        }
+
+        HttpRequest status = HttpRequest.newBuilder(URI.create(baseUrl + "/transfers/" + match(TRANSFER_ID, response.body())))
+                .header("Authorization", "Bearer " + token)
+                .build();
+        // The memory path answers with the final status; the disk path needs polling
+        String state = match(STATUS, response.body());
+        while (state.equals("PENDING") || state.equals("PROCESSING")) {
+            Thread.sleep(1);
+            state = match(STATUS, client.send(status, HttpResponse.BodyHandlers.ofString()).body());
+        }
+        if (!state.equals("COMPLETED")) {
+            throw new IllegalStateException("Transfer ended " + state);
+        }
+    }
+
+    private static String match(Pattern pattern, String body) {
+        Matcher matcher = pattern.matcher(body);
+        if (!matcher.find()) {
+            throw new IllegalStateException("Unexpected response: " + body);
+        }
+        return matcher.group(1);
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.securetransfer.config;
+
+import com.example.securetransfer.service.RateLimitService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.util.unit.DataSize;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UploadQuotaFilterTest {
+
+    // 100 byte upload burst at 10 bytes a second
+    private final UploadQuotaFilter filter = new UploadQuotaFilter(new RateLimitService(true, 100, 20, 10, 1, 5, 0.2,
+            20, 2, 4, DataSize.ofBytes(100), DataSize.ofBytes(10)));
+
+    @AfterEach
+    void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void chargesTheUploadAndPassesItOn() throws Exception {
+        authenticate("alice");
+
+        MockFilterChain chain = new MockFilterChain();
+        MockHttpServletResponse response = filter(upload(50), chain);
+
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(chain.getRequest()).isNotNull();
+    }
+
+    @Test
+    void rejectsWithRetryAfterWhileTheSenderIsOverQuota() throws Exception {
+        authenticate("alice");
+        filter(upload(300), new MockFilterChain());
+
+        MockFilterChain chain = new MockFilterChain();
+        MockHttpServletResponse response = filter(upload(1), chain);
+
+        assertThat(response.getStatus()).isEqualTo(429);
+        assertThat(response.getHeader(HttpHeaders.RETRY_AFTER)).isEqualTo("20");
+        assertThat(chain.getRequest()).isNull();
+    }
+
+    @Test
+    void rejectsUploadsWithoutAContentLength() throws Exception {
+        authenticate("alice");
+        MockHttpServletRequest request = upload(0);
+        request.setContent(null);
+
+        MockFilterChain chain = new MockFilterChain();
+        MockHttpServletResponse response = filter(request, chain);
+
+        assertThat(response.getStatus()).isEqualTo(411);
+        assertThat(chain.getRequest()).isNull();
+    }
+
+    @Test
+    void leavesUnauthenticatedAndOtherRequestsAlone() throws Exception {
+        MockFilterChain unauthenticated = new MockFilterChain();
+        assertThat(filter(upload(1000), unauthenticated).getStatus()).isEqualTo(200);
+        assertThat(unauthenticated.getRequest()).isNotNull();
+
+        authenticate("alice");
+        MockHttpServletRequest download = new MockHttpServletRequest("GET", "/api/transfers");
+        download.setServletPath("/api/transfers");
+        MockFilterChain chain = new MockFilterChain();
+        assertThat(filter(download, chain).getStatus()).isEqualTo(200);
+        assertThat(chain.getRequest()).isNotNull();
+    }
+
+    private MockHttpServletResponse filter(MockHttpServletRequest request, MockFilterChain chain) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, chain);
+        return response;
+    }
+
+    private static MockHttpServletRequest upload(int size) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/transfers");
+        request.setServletPath("/api/transfers");
+        request.setContent(new byte[size]);
+        return request;
+    }
+
+    private static void authenticate(String username) {
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(username, null, List.of()));
+    }
+}
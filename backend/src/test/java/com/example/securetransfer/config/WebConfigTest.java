@@ -0,0 +1,25 @@
+package com.example.securetransfer.config;
+
+import jakarta.servlet.MultipartConfigElement;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.web.servlet.MultipartProperties;
+import org.springframework.util.unit.DataSize;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WebConfigTest {
+
+    @Test
+    void multipartThresholdFollowsTheSmallFileThreshold() {
+        MultipartProperties properties = new MultipartProperties();
+        properties.setMaxFileSize(DataSize.ofMegabytes(100));
+        properties.setMaxRequestSize(DataSize.ofMegabytes(101));
+        properties.setFileSizeThreshold(DataSize.ofKilobytes(1));
+
+        MultipartConfigElement config = new WebConfig().multipartConfigElement(properties, DataSize.ofKilobytes(128));
+
+        assertThat(config.getFileSizeThreshold()).isEqualTo(128 * 1024);
+        assertThat(config.getMaxFileSize()).isEqualTo(DataSize.ofMegabytes(100).toBytes());
+        assertThat(config.getMaxRequestSize()).isEqualTo(DataSize.ofMegabytes(101).toBytes());
+    }
+}
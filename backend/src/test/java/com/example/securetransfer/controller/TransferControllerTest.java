@@ -0,0 +1,151 @@
+package com.example.securetransfer.controller;
+
+import com.example.securetransfer.dto.TransferResponse;
+import com.example.securetransfer.model.Transfer;
+import com.example.securetransfer.model.TransferStatus;
+import com.example.securetransfer.repository.TransferRepository;
+import com.example.securetransfer.service.AuditService;
+import com.example.securetransfer.service.ClusterService;
+import com.example.securetransfer.service.FileStorageService;
+import com.example.securetransfer.service.RateLimitService;
+import com.example.securetransfer.service.SecureTransferProtocolService;
+import com.example.securetransfer.service.SmallFileBufferPool;
+import com.example.securetransfer.service.StorageLifecycleService;
+import com.example.securetransfer.service.TransferBatchWriter;
+import com.example.securetransfer.service.TransferStatusService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TransferControllerTest {
+
+    private final UUID id = UUID.randomUUID();
+    private final TransferRepository transferRepository = mock(TransferRepository.class);
+    private final FileStorageService fileStorageService = mock(FileStorageService.class);
+    private final SecureTransferProtocolService protocolService = mock(SecureTransferProtocolService.class);
+    private final StorageLifecycleService storageLifecycleService = mock(StorageLifecycleService.class);
+    private final RateLimitService rateLimitService = mock(RateLimitService.class);
+    private final SmallFileBufferPool smallFileBufferPool = mock(SmallFileBufferPool.class);
+    // node-b is configured but nothing listens there; a forward attempt would answer 502
+    private final ClusterService clusterService = spy(new ClusterService("node-a", "node-b=http://127.0.0.1:9",
+            "node-a", Duration.ofSeconds(1)));
+    private final TransferController controller = new TransferController(protocolService, fileStorageService,
+            transferRepository, storageLifecycleService, rateLimitService, mock(TransferBatchWriter.class),
+            mock(TransferStatusService.class), clusterService, mock(AuditService.class), smallFileBufferPool);
+
+    @BeforeEach
+    void authenticate() {
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken("bob", null, List.of()));
+    }
+
+    @AfterEach
+    void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void forwardedDownloadOfAFileThisNodeDoesNotHoldIsALoop() {
+        storedOn("node-b");
+
+        var response = controller.downloadDecryptedFile(id, "Bearer token", "node-b");
+
+        assertThat(response.getStatusCode().value()).isEqualTo(508);
+        verify(clusterService, never()).forwardGet(anyString(), anyString(), anyString());
+    }
+
+    @Test
+    void downloadOfAnotherNodesFileIsForwardedToIt() {
+        storedOn("node-b");
+
+        var response = controller.downloadDecryptedFile(id, "Bearer token", null);
+
+        verify(clusterService).forwardGet("node-b", "/api/transfers/" + id + "/content", "Bearer token");
+        assertThat(response.getStatusCode().value()).isEqualTo(502);
+    }
+
+    @Test
+    void forwardedDownloadOfALocalFileIsServed() throws Exception {
+        storedOn("node-a");
+        when(fileStorageService.loadAsResource("decrypted")).thenReturn(new ByteArrayResource(new byte[] {1}));
+
+        var response = controller.downloadDecryptedFile(id, "Bearer token", "node-b");
+
+        assertThat(response.getStatusCode().value()).isEqualTo(200);
+        verify(clusterService, never()).forwardGet(anyString(), anyString(), anyString());
+    }
+
+    @Test
+    void legacyTransfersAreServedByTheLegacyNode() throws Exception {
+        storedOn(null);
+        when(fileStorageService.loadAsResource("decrypted")).thenReturn(new ByteArrayResource(new byte[] {1}));
+
+        assertThat(controller.downloadDecryptedFile(id, null, null).getStatusCode().value()).isEqualTo(200);
+    }
+
+    @Test
+    void smallTransferThatCompletesIsCreated() throws Exception {
+        ResponseEntity<TransferResponse> response = uploadSmallFile(transfer -> transfer.setStatus(TransferStatus.COMPLETED));
+
+        assertThat(response.getStatusCode().value()).isEqualTo(201);
+        assertThat(response.getBody().getStatus()).isEqualTo(TransferStatus.COMPLETED);
+    }
+
+    @Test
+    void smallTransferThatFailsIsAnError() throws Exception {
+        ResponseEntity<TransferResponse> response = uploadSmallFile(transfer -> {
+            transfer.setStatus(TransferStatus.FAILED);
+            transfer.setFailureReason("bad key");
+        });
+
+        assertThat(response.getStatusCode().value()).isEqualTo(422);
+        assertThat(response.getBody().getStatus()).isEqualTo(TransferStatus.FAILED);
+        assertThat(response.getBody().getTransferId()).isNotNull();
+        verify(rateLimitService).releaseTransferSlot("bob");
+    }
+
+    private ResponseEntity<TransferResponse> uploadSmallFile(Consumer<Transfer> outcome) throws Exception {
+        when(storageLifecycleService.admit(anyLong())).thenReturn(true);
+        when(rateLimitService.tryAcquireTransferSlot("bob")).thenReturn(true);
+        when(smallFileBufferPool.tryAcquire(anyLong())).thenReturn(new byte[64]);
+        doAnswer(invocation -> {
+            outcome.accept(invocation.getArgument(0));
+            return null;
+        }).when(protocolService).processInMemory(any(Transfer.class), any(byte[].class), anyInt());
+
+        return controller.initiateTransfer(new MockMultipartFile("file", "a.txt", "text/plain", new byte[] {1, 2, 3}), "alice", null);
+    }
+
+    private void storedOn(String node) {
+        Transfer transfer = new Transfer();
+        transfer.setId(id);
+        transfer.setReceiverUsername("bob");
+        transfer.setStatus(TransferStatus.COMPLETED);
+        transfer.setDecryptedFileName("decrypted");
+        transfer.setOriginalFileName("a.txt");
+        transfer.setStorageNode(node);
+        when(transferRepository.findById(id)).thenReturn(Optional.of(transfer));
+    }
+}
@@ -0,0 +1,183 @@
+package com.example.securetransfer.service;
+
+import com.example.securetransfer.model.AuditEvent;
+import com.example.securetransfer.model.AuditEventType;
+import com.example.securetransfer.repository.AuditEventRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class AuditServiceTest {
+
+    private final AuditEventRepository repository = mock(AuditEventRepository.class);
+    private final TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+    private final List<AuditEvent> saved = Collections.synchronizedList(new ArrayList<>());
+    private AuditService auditService;
+
+    AuditServiceTest() {
+        doAnswer(invocation -> {
+            invocation.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+        // The writer reuses its batch list, so copy the events out
+        when(repository.saveAll(any())).thenAnswer(invocation -> {
+            invocation.<Iterable<AuditEvent>>getArgument(0).forEach(saved::add);
+            return List.of();
+        });
+    }
+
+    @AfterEach
+    void stop() throws InterruptedException {
+        if (auditService != null) {
+            auditService.stop();
+        }
+    }
+
+    @Test
+    void writesEveryEventAcceptedBelowCapacity() throws Exception {
+        auditService = newAuditService(1024, AuditService.OverflowPolicy.DROP, Duration.ZERO);
+        auditService.start();
+
+        int accepted = recordConcurrently(4, 200);
+        auditService.stop();
+
+        assertThat(accepted).isEqualTo(800);
+        assertThat(auditService.getDroppedCount()).isZero();
+        assertThat(saved).hasSize(800);
+        assertThat(saved.stream().map(AuditEvent::getDetail).distinct()).hasSize(800);
+    }
+
+    @Test
+    void countsEveryDroppedEventAndRecordsTheCount() throws Exception {
+        auditService = newAuditService(1024, AuditService.OverflowPolicy.DROP, Duration.ZERO);
+
+        // Writer not started yet, so the ring fills up and stays full
+        int accepted = recordConcurrently(4, 1000);
+
+        assertThat(accepted).isEqualTo(1024);
+        assertThat(auditService.getDroppedCount()).isEqualTo(4000 - 1024);
+
+        auditService.start();
+        auditService.stop();
+
+        assertThat(saved.stream().filter(event -> event.getType() == AuditEventType.HANDSHAKE)).hasSize(1024);
+        List<AuditEvent> droppedEvents = saved.stream().filter(event -> event.getType() == AuditEventType.EVENTS_DROPPED).toList();
+        assertThat(droppedEvents).hasSize(1);
+        assertThat(droppedEvents.get(0).isSuccess()).isFalse();
+        assertThat(droppedEvents.get(0).getDetail()).startsWith((4000 - 1024) + " events dropped");
+    }
+
+    @Test
+    void dropsDuringADatabaseOutageAreMergedIntoOneEvent() throws Exception {
+        List<Integer> attempts = Collections.synchronizedList(new ArrayList<>());
+        AtomicInteger failures = new AtomicInteger(3);
+        doAnswer(invocation -> {
+            List<AuditEvent> batch = new ArrayList<>();
+            invocation.<Iterable<AuditEvent>>getArgument(0).forEach(batch::add);
+            attempts.add(batch.size());
+            if (failures.getAndDecrement() > 0) {
+                throw new IllegalStateException("database down");
+            }
+            saved.addAll(batch);
+            return List.of();
+        }).when(repository).saveAll(any());
+        auditService = newAuditService(8, AuditService.OverflowPolicy.DROP, Duration.ZERO);
+        auditService.start();
+
+        // Each wave overflows the full batch and ring while the writer waits to retry
+        int accepted = 0;
+        for (int wave = 1; wave <= 3; wave++) {
+            accepted += recordConcurrently(2, 100);
+            int attempt = wave;
+            while (attempts.size() < attempt) {
+                Thread.yield();
+            }
+        }
+        while (saved.isEmpty()) {
+            Thread.yield();
+        }
+        auditService.stop();
+
+        long dropped = auditService.getDroppedCount();
+        assertThat(dropped).isEqualTo(600 - accepted);
+        assertThat(attempts).allSatisfy(size -> assertThat(size).isLessThanOrEqualTo(101));
+        List<AuditEvent> droppedEvents = saved.stream().filter(event -> event.getType() == AuditEventType.EVENTS_DROPPED).toList();
+        assertThat(droppedEvents).hasSize(1);
+        assertThat(droppedEvents.get(0).getDetail()).startsWith(dropped + " events dropped");
+        assertThat(saved.stream().filter(event -> event.getType() == AuditEventType.HANDSHAKE)).hasSize(accepted);
+    }
+
+    @Test
+    void blockWaitsForTheWriterInsteadOfDropping() throws Exception {
+        auditService = newAuditService(8, AuditService.OverflowPolicy.BLOCK, Duration.ofSeconds(10));
+        auditService.start();
+
+        int accepted = recordConcurrently(4, 100);
+        auditService.stop();
+
+        assertThat(accepted).isEqualTo(400);
+        assertThat(auditService.getDroppedCount()).isZero();
+        assertThat(saved).hasSize(400);
+    }
+
+    @Test
+    void blockDropsAfterTheTimeout() {
+        auditService = newAuditService(8, AuditService.OverflowPolicy.BLOCK, Duration.ofMillis(50));
+
+        for (int i = 0; i < 8; i++) {
+            assertThat(auditService.record(UUID.randomUUID(), AuditEventType.HANDSHAKE, true, "alice", null)).isTrue();
+        }
+        assertThat(auditService.record(UUID.randomUUID(), AuditEventType.HANDSHAKE, true, "alice", null)).isFalse();
+        assertThat(auditService.getDroppedCount()).isEqualTo(1);
+    }
+
+    private AuditService newAuditService(int capacity, AuditService.OverflowPolicy policy, Duration blockTimeout) {
+        return new AuditService(repository, transactionTemplate, new ClusterService("local", "", "local", Duration.ofSeconds(1)),
+                true, capacity, 100, Duration.ofMillis(5), policy, blockTimeout);
+    }
+
+    // Returns how many events were accepted
+    private int recordConcurrently(int threads, int perThread) throws InterruptedException {
+        AtomicInteger accepted = new AtomicInteger();
+        ExecutorService producers = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            producers.execute(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < perThread; i++) {
+                    if (auditService.record(UUID.randomUUID(), AuditEventType.HANDSHAKE, true, "alice", thread + "-" + i)) {
+                        accepted.incrementAndGet();
+                    }
+                }
+            });
+        }
+        start.countDown();
+        producers.shutdown();
+        assertThat(producers.awaitTermination(60, TimeUnit.SECONDS)).isTrue();
+        return accepted.get();
+    }
+}
@@ -0,0 +1,159 @@
+package com.example.securetransfer.service;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ClusterServiceTest {
+
+    private HttpServer peer;
+    private final Map<String, String> received = new ConcurrentHashMap<>();
+
+    @AfterEach
+    void stopPeer() {
+        if (peer != null) {
+            peer.stop(0);
+        }
+    }
+
+    @Test
+    void singleNodeOwnsEverything() {
+        ClusterService cluster = new ClusterService("local", "", "local", Duration.ofSeconds(1));
+
+        assertThat(cluster.isClustered()).isFalse();
+        assertThat(cluster.isLocal("local")).isTrue();
+        assertThat(cluster.isLocal(null)).isTrue();
+        assertThat(cluster.ownsLegacyTransfers()).isTrue();
+    }
+
+    @Test
+    void transfersWithoutANodeBelongToTheLegacyNode() {
+        String nodes = "node-a=http://localhost:8081,node-b=http://localhost:8082";
+        ClusterService nodeA = new ClusterService("node-a", nodes, "node-a", Duration.ofSeconds(1));
+        ClusterService nodeB = new ClusterService("node-b", nodes, "node-a", Duration.ofSeconds(1));
+
+        assertThat(nodeA.isClustered()).isTrue();
+        assertThat(nodeA.isLocal("node-a")).isTrue();
+        assertThat(nodeA.isLocal("node-b")).isFalse();
+        assertThat(nodeA.isLocal(null)).isTrue();
+        assertThat(nodeA.ownsLegacyTransfers()).isTrue();
+        assertThat(nodeB.isLocal(null)).isFalse();
+        assertThat(nodeB.ownsLegacyTransfers()).isFalse();
+    }
+
+    @Test
+    void rejectsMalformedNodeList() {
+        assertThatThrownBy(() -> new ClusterService("node-a", "node-a", "local", Duration.ofSeconds(1)))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void recognizesForwardsOnlyFromTheNamedPeersAddress() {
+        ClusterService cluster = new ClusterService("node-a", "node-a=http://127.0.0.1:8081,node-b=http://127.0.0.1:8082",
+                "local", Duration.ofSeconds(1));
+
+        assertThat(cluster.isForwardedByPeer("node-b", "127.0.0.1")).isTrue();
+        assertThat(cluster.isForwardedByPeer("node-b", "10.1.2.3")).isFalse();
+        assertThat(cluster.isForwardedByPeer("node-c", "127.0.0.1")).isFalse();
+        // A node never forwards to itself
+        assertThat(cluster.isForwardedByPeer("node-a", "127.0.0.1")).isFalse();
+        assertThat(cluster.isForwardedByPeer(null, "127.0.0.1")).isFalse();
+    }
+
+    @Test
+    void forwardsToTheOwningNodeAndRelaysItsResponse() throws Exception {
+        startPeer(200, "file content");
+        ClusterService cluster = new ClusterService("node-a", "node-b=http://127.0.0.1:" + peer.getAddress().getPort(),
+                "local", Duration.ofSeconds(1));
+
+        ResponseEntity<Resource> response = cluster.forwardGet("node-b", "/api/transfers/42/content", "Bearer token");
+
+        assertThat(response.getStatusCode().value()).isEqualTo(200);
+        assertThat(body(response)).isEqualTo("file content");
+        assertThat(response.getHeaders().getFirst(HttpHeaders.CONTENT_DISPOSITION)).isEqualTo("attachment; filename=\"a.txt\"");
+        assertThat(response.getHeaders().containsKey("X-Internal")).isFalse();
+        assertThat(received).containsEntry("path", "/api/transfers/42/content")
+            .containsEntry(ClusterService.FORWARDED_HEADER, "node-a")
+            .containsEntry(HttpHeaders.AUTHORIZATION, "Bearer token");
+    }
+
+    @Test
+    void relaysErrorStatusesUnchanged() throws Exception {
+        startPeer(508, "");
+        ClusterService cluster = new ClusterService("node-a", "node-b=http://127.0.0.1:" + peer.getAddress().getPort(),
+                "local", Duration.ofSeconds(1));
+
+        assertThat(cluster.forwardGet("node-b", "/api/transfers/42/content", null).getStatusCode().value()).isEqualTo(508);
+        assertThat(received).doesNotContainKey(HttpHeaders.AUTHORIZATION);
+    }
+
+    @Test
+    void legacyTransfersAreForwardedToTheLegacyNode() throws Exception {
+        startPeer(200, "legacy");
+        ClusterService cluster = new ClusterService("node-b", "node-a=http://127.0.0.1:" + peer.getAddress().getPort(),
+                "node-a", Duration.ofSeconds(1));
+
+        assertThat(body(cluster.forwardGet(null, "/api/transfers/42/content", null))).isEqualTo("legacy");
+    }
+
+    @Test
+    void unknownNodeIsUnavailable() {
+        ClusterService cluster = new ClusterService("node-a", "", "local", Duration.ofSeconds(1));
+
+        assertThat(cluster.forwardGet("node-b", "/api/transfers/42/content", null).getStatusCode().value()).isEqualTo(503);
+    }
+
+    @Test
+    void unreachableNodeIsABadGateway() throws Exception {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        ClusterService cluster = new ClusterService("node-a", "node-b=http://127.0.0.1:" + port, "local", Duration.ofSeconds(1));
+
+        assertThat(cluster.forwardGet("node-b", "/api/transfers/42/content", null).getStatusCode().value()).isEqualTo(502);
+    }
+
+    private void startPeer(int status, String body) throws IOException {
+        peer = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        peer.createContext("/", exchange -> {
+            received.put("path", exchange.getRequestURI().getPath());
+            for (String header : new String[] {ClusterService.FORWARDED_HEADER, HttpHeaders.AUTHORIZATION}) {
+                String value = exchange.getRequestHeaders().getFirst(header);
+                if (value != null) {
+                    received.put(header, value);
+                }
+            }
+            byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"a.txt\"");
+            exchange.getResponseHeaders().add("X-Internal", "not proxied");
+            exchange.sendResponseHeaders(status, bytes.length == 0 ? -1 : bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        });
+        peer.start();
+    }
+
+    private static String body(ResponseEntity<Resource> response) throws IOException {
+        try (InputStream in = response.getBody().getInputStream()) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
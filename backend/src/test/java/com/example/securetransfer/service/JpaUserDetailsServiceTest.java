@@ -0,0 +1,74 @@
+package com.example.securetransfer.service;
+
+import com.example.securetransfer.model.User;
+import com.example.securetransfer.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.CredentialsContainer;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class JpaUserDetailsServiceTest {
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final JpaUserDetailsService service = new JpaUserDetailsService(userRepository, 100, Duration.ofMinutes(5));
+
+    JpaUserDetailsServiceTest() {
+        when(userRepository.findByUsername(anyString())).thenReturn(Optional.empty());
+        when(userRepository.findByUsername("alice")).thenReturn(Optional.of(user("alice", "hash")));
+    }
+
+    @Test
+    void cacheHitsDoNotQueryTheDatabase() {
+        UserDetails first = service.loadUserByUsername("alice");
+        UserDetails second = service.loadUserByUsername("alice");
+
+        assertThat(first.getUsername()).isEqualTo("alice");
+        assertThat(first.getPassword()).isEqualTo("hash");
+        assertThat(first.getAuthorities()).extracting(Object::toString).containsExactly("ROLE_USER");
+        assertThat(second.getUsername()).isEqualTo("alice");
+        verify(userRepository, times(1)).findByUsername("alice");
+    }
+
+    @Test
+    void unknownUsersAreNotCached() {
+        assertThatThrownBy(() -> service.loadUserByUsername("mallory")).isInstanceOf(UsernameNotFoundException.class);
+        assertThatThrownBy(() -> service.loadUserByUsername("mallory")).isInstanceOf(UsernameNotFoundException.class);
+        verify(userRepository, times(2)).findByUsername("mallory");
+
+        // A user created after a miss can log in straight away
+        when(userRepository.findByUsername("mallory")).thenReturn(Optional.of(user("mallory", "hash")));
+        assertThat(service.loadUserByUsername("mallory").getUsername()).isEqualTo("mallory");
+    }
+
+    @Test
+    void erasingCredentialsOnAReturnedUserLeavesTheCachedOneIntact() {
+        UserDetails first = service.loadUserByUsername("alice");
+        ((CredentialsContainer) first).eraseCredentials();
+
+        assertThat(first.getPassword()).isNull();
+        assertThat(service.loadUserByUsername("alice").getPassword()).isEqualTo("hash");
+        verify(userRepository, times(1)).findByUsername("alice");
+    }
+
+    private static User user(String username, String passwordHash) {
+        User user = new User();
+        user.setId(UUID.randomUUID());
+        user.setUsername(username);
+        user.setPasswordHash(passwordHash);
+        user.setRole("USER");
+        user.setEnabled(true);
+        return user;
+    }
+}
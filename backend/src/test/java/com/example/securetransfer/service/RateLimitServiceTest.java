@@ -0,0 +1,92 @@
+package com.example.securetransfer.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RateLimitServiceTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    // Two login attempts per client and account, two transfers in flight, 100 byte upload burst at 10 bytes a second
+    private static RateLimitService service(boolean enabled) {
+        return new RateLimitService(enabled, 100, 20, 10, 1, 2, 0.01, 20, 2, 2,
+                DataSize.ofBytes(100), DataSize.ofBytes(10));
+    }
+
+    @Test
+    void retryAfterRoundsUpToWholeSeconds() {
+        assertThat(RateLimitService.retryAfterSeconds(0)).isEqualTo("1");
+        assertThat(RateLimitService.retryAfterSeconds(1)).isEqualTo("1");
+        assertThat(RateLimitService.retryAfterSeconds(SECOND)).isEqualTo("1");
+        assertThat(RateLimitService.retryAfterSeconds(SECOND + 1)).isEqualTo("2");
+        assertThat(RateLimitService.retryAfterSeconds(5 * SECOND / 2)).isEqualTo("3");
+    }
+
+    @Test
+    void transferSlotsAreReturnedOnRelease() {
+        RateLimitService service = service(true);
+
+        assertThat(service.tryAcquireTransferSlot("alice")).isTrue();
+        assertThat(service.tryAcquireTransferSlot("alice")).isTrue();
+        assertThat(service.tryAcquireTransferSlot("alice")).isFalse();
+        assertThat(service.tryAcquireTransferSlot("bob")).isTrue();
+
+        service.releaseTransferSlot("alice");
+        assertThat(service.tryAcquireTransferSlot("alice")).isTrue();
+        assertThat(service.tryAcquireTransferSlot("alice")).isFalse();
+    }
+
+    @Test
+    void extraReleasesDoNotGrantExtraSlots() {
+        RateLimitService service = service(true);
+        service.releaseTransferSlot("alice");
+        service.tryAcquireTransferSlot("alice");
+        for (int i = 0; i < 5; i++) {
+            service.releaseTransferSlot("alice");
+        }
+
+        assertThat(service.tryAcquireTransferSlot("alice")).isTrue();
+        assertThat(service.tryAcquireTransferSlot("alice")).isTrue();
+        assertThat(service.tryAcquireTransferSlot("alice")).isFalse();
+    }
+
+    @Test
+    void loginLimitIsPerClientAndAccount() {
+        RateLimitService service = service(true);
+        service.tryAcquireLoginByUser("10.0.0.1", "alice");
+        service.tryAcquireLoginByUser("10.0.0.1", "alice");
+
+        assertThat(service.tryAcquireLoginByUser("10.0.0.1", "ALICE")).isPositive();
+        // Another client guessing, or the user themselves, is not locked out
+        assertThat(service.tryAcquireLoginByUser("10.0.0.2", "alice")).isZero();
+        assertThat(service.tryAcquireLoginByUser("10.0.0.1", "bob")).isZero();
+    }
+
+    @Test
+    void uploadOverdrawsOnceThenWaitsForTheDebt() {
+        RateLimitService service = service(true);
+
+        assertThat(service.tryAcquireUpload("alice", 300)).isZero();
+
+        // 300 bytes from a 100 byte burst at 10 bytes a second: 20 seconds until the next upload
+        long wait = service.tryAcquireUpload("alice", 1);
+        assertThat(wait).isBetween(19 * SECOND, 20 * SECOND);
+        assertThat(RateLimitService.retryAfterSeconds(wait)).isEqualTo("20");
+        assertThat(service.tryAcquireUpload("bob", 1)).isZero();
+    }
+
+    @Test
+    void disabledServiceAllowsEverything() {
+        RateLimitService service = service(false);
+
+        for (int i = 0; i < 10; i++) {
+            assertThat(service.tryAcquireLoginByUser("10.0.0.1", "alice")).isZero();
+            assertThat(service.tryAcquireTransferSlot("alice")).isTrue();
+            assertThat(service.tryAcquireUpload("alice", 1000)).isZero();
+        }
+    }
+}
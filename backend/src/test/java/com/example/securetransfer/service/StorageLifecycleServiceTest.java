@@ -0,0 +1,156 @@
+package com.example.securetransfer.service;
+
+import com.example.securetransfer.model.Transfer;
+import com.example.securetransfer.repository.TransferRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class StorageLifecycleServiceTest {
+
+    private static final long GB = DataSize.ofGigabytes(1).toBytes();
+
+    private final FileStorageService fileStorageService = mock(FileStorageService.class);
+    private final TransferRepository transferRepository = mock(TransferRepository.class);
+    private final TransferStatusService transferStatusService = mock(TransferStatusService.class);
+    private final TaskScheduler taskScheduler = mock(TaskScheduler.class);
+    private final List<UUID> expired = new ArrayList<>();
+
+    private final StorageLifecycleService service = newService("local");
+
+    StorageLifecycleServiceTest() {
+        doAnswer(invocation -> {
+            Collection<UUID> ids = invocation.getArgument(0);
+            expired.addAll(ids);
+            return ids.size();
+        }).when(transferStatusService).markExpired(anyCollection());
+    }
+
+    @Test
+    void admitsUploadsThatKeepFreeSpaceAboveTheLowWatermark() throws Exception {
+        when(fileStorageService.getUsableSpace()).thenReturn(10 * GB);
+
+        assertThat(service.admit(9 * GB)).isTrue();
+        assertThat(service.admit(9 * GB + 1)).isFalse();
+        verify(taskScheduler, never()).schedule(any(Runnable.class), any(Instant.class));
+    }
+
+    @Test
+    void requestsOneSweepBelowTheSweepWatermark() throws Exception {
+        when(fileStorageService.getUsableSpace()).thenReturn(3 * GB);
+
+        assertThat(service.admit(GB)).isTrue();
+        assertThat(service.admit(GB)).isTrue();
+        assertThat(service.admit(3 * GB)).isFalse();
+
+        // Every upload asks, but requests within the debounce interval collapse into one
+        verify(taskScheduler, times(1)).schedule(any(Runnable.class), any(Instant.class));
+    }
+
+    @Test
+    void admitsWhenFreeSpaceIsUnknown() throws Exception {
+        when(fileStorageService.getUsableSpace()).thenThrow(new IOException("no file store"));
+
+        assertThat(service.admit(100 * GB)).isTrue();
+    }
+
+    @Test
+    void sweepExpiresInBatchesUntilAShortBatch() throws Exception {
+        List<Transfer> first = List.of(completed("a"), completed("b"));
+        List<Transfer> second = List.of(completed("c"), completed("d"));
+        List<Transfer> last = List.of(completed("e"));
+        when(transferRepository.findExpiredDecrypted(eq("node-a"), any(), any(), any(Pageable.class)))
+                .thenReturn(first, second, last);
+        // A file that can't be deleted is still expired; the reconciler removes it later
+        when(fileStorageService.delete("decrypted-c")).thenThrow(new IOException("busy"));
+
+        service.sweepExpired();
+
+        verify(transferRepository, times(3)).findExpiredDecrypted(eq("node-a"), any(), any(), any(Pageable.class));
+        verify(transferStatusService, times(3)).markExpired(anyCollection());
+        assertThat(expired).hasSize(5);
+        for (String name : List.of("a", "b", "d", "e")) {
+            verify(fileStorageService).delete("decrypted-" + name);
+        }
+    }
+
+    @Test
+    void reconcileDeletesOnlyUnreferencedFilesPastTheGracePeriod() throws Exception {
+        Instant old = Instant.now().minus(Duration.ofHours(1));
+        Instant recent = Instant.now().minus(Duration.ofMinutes(1));
+        when(fileStorageService.listStoredFiles()).thenReturn(Map.of(
+                "raw-in-progress", old,
+                "decrypted-live", old,
+                "orphan-old", old,
+                "orphan-recent", recent));
+        when(transferRepository.findStoredFileNamesByStatusIn(anyCollection())).thenReturn(List.of("raw-in-progress"));
+        when(transferRepository.findDecryptedFileNames("node-a")).thenReturn(List.<Object[]>of(
+                new Object[] {UUID.randomUUID(), "decrypted-live", old}));
+
+        service.reconcile();
+
+        verify(fileStorageService).delete("orphan-old");
+        verify(fileStorageService, times(1)).delete(anyString());
+        assertThat(expired).isEmpty();
+    }
+
+    @Test
+    void reconcileExpiresCompletedTransfersWhoseFileIsMissing() throws Exception {
+        UUID missing = UUID.randomUUID();
+        UUID completedDuringListing = UUID.randomUUID();
+        when(fileStorageService.listStoredFiles()).thenReturn(Map.of());
+        when(transferRepository.findDecryptedFileNames("node-a")).thenReturn(List.<Object[]>of(
+                new Object[] {missing, "decrypted-gone", Instant.now().minus(Duration.ofHours(1))},
+                new Object[] {completedDuringListing, "decrypted-new", Instant.now().plusSeconds(60)}));
+
+        service.reconcile();
+
+        assertThat(expired).containsExactly(missing);
+    }
+
+    @Test
+    void onlyTheLegacyNodeClaimsTransfersWithoutANode() {
+        service.claimLegacyTransfers();
+        verify(transferRepository, never()).assignUnownedTo(anyString());
+
+        newService("node-a").claimLegacyTransfers();
+        verify(transferRepository).assignUnownedTo("node-a");
+    }
+
+    // Batches of 2, 1 GB low watermark, sweeps requested below 5 GB, 15 minute orphan grace period
+    private StorageLifecycleService newService(String legacyNode) {
+        return new StorageLifecycleService(fileStorageService, transferRepository, transferStatusService, taskScheduler,
+                new ClusterService("node-a", "", legacyNode, Duration.ofSeconds(1)),
+                Duration.ofHours(1), Duration.ofDays(7), Duration.ofMinutes(15), 2,
+                DataSize.ofGigabytes(1), DataSize.ofGigabytes(5));
+    }
+
+    private static Transfer completed(String name) {
+        Transfer transfer = new Transfer();
+        transfer.setId(UUID.randomUUID());
+        transfer.setDecryptedFileName("decrypted-" + name);
+        return transfer;
+    }
+}
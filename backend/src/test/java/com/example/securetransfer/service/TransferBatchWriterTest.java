@@ -0,0 +1,152 @@
+package com.example.securetransfer.service;
+
+import com.example.securetransfer.model.Transfer;
+import com.example.securetransfer.repository.TransferRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class TransferBatchWriterTest {
+
+    private static final int CALLERS = 8;
+
+    private final TransferRepository transferRepository = mock(TransferRepository.class);
+    private final TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+    private final List<Integer> batchSizes = Collections.synchronizedList(new ArrayList<>());
+    private final Set<UUID> saved = ConcurrentHashMap.newKeySet();
+    private final Set<UUID> rejected = ConcurrentHashMap.newKeySet();
+    private final TransferBatchWriter writer = new TransferBatchWriter(transferRepository, transactionTemplate, 50, 100);
+    private final ExecutorService callers = Executors.newFixedThreadPool(CALLERS);
+
+    TransferBatchWriterTest() {
+        doAnswer(invocation -> {
+            invocation.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+        // Fails the whole batch if any row in it is rejected, as a rolled back transaction would
+        when(transferRepository.saveAll(any())).thenAnswer(invocation -> {
+            List<Transfer> transfers = new ArrayList<>();
+            invocation.<Iterable<Transfer>>getArgument(0).forEach(transfers::add);
+            batchSizes.add(transfers.size());
+            if (transfers.stream().anyMatch(transfer -> rejected.contains(transfer.getId()))) {
+                throw new DataIntegrityViolationException("rejected");
+            }
+            transfers.forEach(transfer -> saved.add(transfer.getId()));
+            return transfers;
+        });
+    }
+
+    @AfterEach
+    void shutdown() throws InterruptedException {
+        callers.shutdownNow();
+        writer.stop();
+    }
+
+    @Test
+    void failedBatchReachesEveryCallerInIt() throws Exception {
+        doAnswer(invocation -> {
+            List<Transfer> transfers = new ArrayList<>();
+            invocation.<Iterable<Transfer>>getArgument(0).forEach(transfers::add);
+            batchSizes.add(transfers.size());
+            throw new IllegalStateException("database down");
+        }).when(transferRepository).saveAll(any());
+
+        List<Future<Throwable>> results = insertTogether(CALLERS);
+
+        for (Future<Throwable> result : results) {
+            assertThat(result.get(30, TimeUnit.SECONDS))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("database down");
+        }
+        // The whole batch first, then each row on its own
+        assertThat(batchSizes).hasSize(CALLERS + 1).startsWith(CALLERS);
+        assertThat(saved).isEmpty();
+    }
+
+    @Test
+    void oneBadRowOnlyFailsItsOwnCaller() throws Exception {
+        List<Transfer> transfers = newTransfers(CALLERS);
+        rejected.add(transfers.get(3).getId());
+
+        List<Future<Throwable>> results = insertTogether(transfers);
+        assertThat(results.get(0).get(30, TimeUnit.SECONDS)).isNull();
+        assertThat(batchSizes).startsWith(CALLERS);
+
+        for (int i = 0; i < CALLERS; i++) {
+            Throwable failure = results.get(i).get(30, TimeUnit.SECONDS);
+            if (i == 3) {
+                assertThat(failure).isInstanceOf(DataIntegrityViolationException.class);
+            } else {
+                assertThat(failure).isNull();
+                assertThat(saved).contains(transfers.get(i).getId());
+            }
+        }
+    }
+
+    @Test
+    void singleInsertFailureIsRethrownUnwrapped() {
+        writer.start();
+        Transfer transfer = newTransfers(1).get(0);
+        rejected.add(transfer.getId());
+
+        assertThatThrownBy(() -> writer.insert(transfer)).isInstanceOf(DataIntegrityViolationException.class);
+    }
+
+    private List<Future<Throwable>> insertTogether(int count) throws InterruptedException {
+        return insertTogether(newTransfers(count));
+    }
+
+    // Queues every insert before the writer starts, so they all land in the same batch
+    private List<Future<Throwable>> insertTogether(List<Transfer> transfers) throws InterruptedException {
+        CountDownLatch submitted = new CountDownLatch(transfers.size());
+        List<Future<Throwable>> results = new ArrayList<>();
+        for (Transfer transfer : transfers) {
+            results.add(callers.submit(() -> {
+                submitted.countDown();
+                try {
+                    writer.insert(transfer);
+                    return null;
+                } catch (RuntimeException e) {
+                    return e;
+                }
+            }));
+        }
+        submitted.await();
+        // The latch only says every caller is about to queue; give them time to do it
+        Thread.sleep(200);
+        writer.start();
+        return results;
+    }
+
+    private static List<Transfer> newTransfers(int count) {
+        List<Transfer> transfers = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Transfer transfer = new Transfer();
+            transfer.setId(UUID.randomUUID());
+            transfers.add(transfer);
+        }
+        return transfers;
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.securetransfer.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import javax.crypto.SecretKey;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+class TransferPipelineTest {
+
+    private static final int CHUNK_SIZE = 1024;
+    private static final Duration TIMEOUT = Duration.ofSeconds(30);
+
+    // One lease and three stage threads, so a leaked lease or a stuck stage blocks the next run
+    private final TransferPipeline pipeline = new TransferPipeline(DataSize.ofBytes(CHUNK_SIZE), 1, 1);
+    private final SecretKey key = new SecretKeySpec(new byte[32], "AES");
+    private final IvParameterSpec iv = new IvParameterSpec(new byte[16]);
+
+    @TempDir
+    Path dir;
+
+    @AfterEach
+    void shutdown() {
+        pipeline.shutdown();
+    }
+
+    @Test
+    void emptyFile() throws Exception {
+        assertRoundTrip(new byte[0]);
+    }
+
+    @Test
+    void fileOfExactlyOneChunk() throws Exception {
+        assertRoundTrip(randomBytes(CHUNK_SIZE));
+    }
+
+    @Test
+    void fileThatIsNotAMultipleOfTheAesBlock() throws Exception {
+        assertRoundTrip(randomBytes(1000));
+        assertRoundTrip(randomBytes(3 * CHUNK_SIZE + 7));
+    }
+
+    @Test
+    void fileThatFillsTheRings() throws Exception {
+        assertRoundTrip(randomBytes(50 * CHUNK_SIZE + 1));
+    }
+
+    @Test
+    void readerFailureReachesTheCallerAndFreesThePipeline() throws Exception {
+        Path missing = dir.resolve("missing.bin");
+
+        assertTimeoutPreemptively(TIMEOUT, () ->
+            assertThatThrownBy(() -> pipeline.run(missing, dir.resolve("out.bin"), key, iv))
+                .isInstanceOf(NoSuchFileException.class));
+
+        assertRoundTrip(randomBytes(5 * CHUNK_SIZE));
+    }
+
+    @Test
+    void writerFailureStopsTheOtherStagesAndFreesThePipeline() throws Exception {
+        // Large enough that the reader and crypto stages are blocked on full rings when the writer fails
+        Path source = dir.resolve("source.bin");
+        Files.write(source, randomBytes(50 * CHUNK_SIZE));
+        Path unwritable = dir.resolve("no-such-dir").resolve("out.bin");
+
+        assertTimeoutPreemptively(TIMEOUT, () ->
+            assertThatThrownBy(() -> pipeline.run(source, unwritable, key, iv))
+                .isInstanceOf(NoSuchFileException.class));
+
+        // Only succeeds if all three stage threads and the single lease are free again
+        assertRoundTrip(randomBytes(20 * CHUNK_SIZE));
+    }
+
+    private void assertRoundTrip(byte[] content) throws Exception {
+        Path source = Files.createTempFile(dir, "source", ".bin");
+        Path destination = Files.createTempFile(dir, "destination", ".bin");
+        Files.write(source, content);
+
+        TransferPipeline.Result result = assertTimeoutPreemptively(TIMEOUT, () -> pipeline.run(source, destination, key, iv));
+
+        byte[] expectedHash = MessageDigest.getInstance("SHA-256").digest(content);
+        assertThat(result.getBytes()).isEqualTo(content.length);
+        assertThat(result.getSenderHash()).isEqualTo(expectedHash);
+        assertThat(result.getReceiverHash()).isEqualTo(expectedHash);
+        assertThat(Files.readAllBytes(destination)).isEqualTo(content);
+    }
+
+    private static byte[] randomBytes(int length) {
+        byte[] bytes = new byte[length];
+        new Random(length).nextBytes(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,158 @@
+package com.example.securetransfer.service;
+
+import com.example.securetransfer.dto.TransferStatusResponse;
+import com.example.securetransfer.model.Transfer;
+import com.example.securetransfer.model.TransferStatus;
+import com.example.securetransfer.repository.TransferRepository;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TransferStatusServiceTest {
+
+    private final UUID id = UUID.randomUUID();
+    private final TransferRepository transferRepository = mock(TransferRepository.class);
+    private final TransferStatusService service = new TransferStatusService(transferRepository,
+            new ClusterService("node-a", "", "local", Duration.ofSeconds(1)), mock(AuditService.class), 100, Duration.ofMinutes(10));
+
+    // What the database holds; the repository's bulk updates write it
+    private final AtomicReference<TransferStatus> stored = new AtomicReference<>(TransferStatus.PROCESSING);
+
+    TransferStatusServiceTest() {
+        when(transferRepository.markCompleted(eq(id), anyString(), any())).thenAnswer(invocation -> {
+            stored.set(TransferStatus.COMPLETED);
+            return 1;
+        });
+        when(transferRepository.markFailed(eq(id), anyString())).thenAnswer(invocation -> {
+            stored.set(TransferStatus.FAILED);
+            return 1;
+        });
+        when(transferRepository.markExpired(anyCollection())).thenAnswer(invocation -> {
+            stored.set(TransferStatus.EXPIRED);
+            return 1;
+        });
+        when(transferRepository.findById(id)).thenAnswer(invocation -> Optional.of(transfer(stored.get())));
+    }
+
+    @Test
+    void servesRepeatedPollsFromTheCache() {
+        assertThat(service.getStatus(id).getStatus()).isEqualTo(TransferStatus.PROCESSING);
+        assertThat(service.getStatus(id).getStatus()).isEqualTo(TransferStatus.PROCESSING);
+
+        verify(transferRepository, times(1)).findById(id);
+    }
+
+    @Test
+    void markCompletedDuringACacheFillIsNotOverwritten() {
+        assertStatusChangeDuringLoadIsSeen(s -> s.markCompleted(id, "decrypted"), TransferStatus.COMPLETED);
+    }
+
+    @Test
+    void markFailedDuringACacheFillIsNotOverwritten() {
+        assertStatusChangeDuringLoadIsSeen(s -> s.markFailed(id, "boom"), TransferStatus.FAILED);
+    }
+
+    @Test
+    void markExpiredDuringACacheFillIsNotOverwritten() {
+        assertStatusChangeDuringLoadIsSeen(s -> s.markExpired(List.of(id)), TransferStatus.EXPIRED);
+    }
+
+    @Test
+    void statusChangesReplaceACachedEntry() {
+        service.cacheCreated(transfer(TransferStatus.PENDING));
+        assertThat(service.getStatus(id).getStatus()).isEqualTo(TransferStatus.PENDING);
+
+        service.markCompleted(id, "decrypted");
+
+        assertThat(service.getStatus(id).getStatus()).isEqualTo(TransferStatus.COMPLETED);
+    }
+
+    @Test
+    void markDownloadedKeepsTheCachedStatus() {
+        stored.set(TransferStatus.COMPLETED);
+        service.getStatus(id);
+
+        service.markDownloaded(id);
+
+        // The download time isn't part of the status response, so the cached entry is still accurate
+        assertThat(service.getStatus(id).getStatus()).isEqualTo(TransferStatus.COMPLETED);
+        verify(transferRepository, times(1)).findById(id);
+    }
+
+    @Test
+    void concurrentPollsNeverLeaveAStaleStatusBehind() throws Exception {
+        AtomicBoolean done = new AtomicBoolean();
+        ExecutorService pollers = Executors.newFixedThreadPool(3);
+        try {
+            List<Future<?>> polls = List.of(
+                    pollers.submit(() -> poll(done)), pollers.submit(() -> poll(done)), pollers.submit(() -> poll(done)));
+            for (int i = 0; i < 2000; i++) {
+                if (i % 2 == 0) {
+                    service.markCompleted(id, "decrypted");
+                } else {
+                    service.markFailed(id, "boom");
+                }
+                Thread.yield();
+            }
+            done.set(true);
+            for (Future<?> poll : polls) {
+                poll.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            pollers.shutdownNow();
+        }
+
+        assertThat(service.getStatus(id).getStatus()).isEqualTo(stored.get());
+    }
+
+    private void poll(AtomicBoolean done) {
+        while (!done.get()) {
+            service.getStatus(id);
+            Thread.yield();
+        }
+    }
+
+    // Runs the status change between the reader's database load and its cache insert
+    private void assertStatusChangeDuringLoadIsSeen(Consumer<TransferStatusService> change, TransferStatus expected) {
+        when(transferRepository.findById(id)).thenAnswer(invocation -> {
+            Transfer loaded = transfer(stored.get());
+            change.accept(service);
+            return Optional.of(loaded);
+        }).thenAnswer(invocation -> Optional.of(transfer(stored.get())));
+
+        // The racing reader still returns what it read...
+        assertThat(service.getStatus(id).getStatus()).isEqualTo(TransferStatus.PROCESSING);
+        // ...but didn't cache it, so the next poll sees the change
+        assertThat(service.getStatus(id).getStatus()).isEqualTo(expected);
+        assertThat(service.getStatus(id).getStatus()).isEqualTo(expected);
+        verify(transferRepository, times(2)).findById(id);
+    }
+
+    private Transfer transfer(TransferStatus status) {
+        Transfer transfer = new Transfer();
+        transfer.setId(id);
+        transfer.setStatus(status);
+        transfer.setStorageNode("node-a");
+        return transfer;
+    }
+}
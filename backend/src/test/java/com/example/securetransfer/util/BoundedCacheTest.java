@@ -0,0 +1,85 @@
+package com.example.securetransfer.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BoundedCacheTest {
+
+    private static final long HOUR = TimeUnit.HOURS.toNanos(1);
+
+    @Test
+    void evictsBackBelowTheBoundWithHeadroom() {
+        BoundedCache<Integer, String> cache = new BoundedCache<>(10, HOUR);
+        for (int i = 0; i < 10; i++) {
+            cache.put(i, "v" + i);
+        }
+        assertThat(cache.size()).isEqualTo(10);
+
+        cache.put(10, "v10");
+
+        // Shrinks to 90% of the bound so the next put doesn't rescan
+        assertThat(cache.size()).isEqualTo(9);
+    }
+
+    @Test
+    void neverGrowsPastTheBound() {
+        BoundedCache<Integer, String> cache = new BoundedCache<>(100, HOUR);
+        for (int i = 0; i < 10_000; i++) {
+            cache.put(i, "v" + i);
+            assertThat(cache.size()).isLessThanOrEqualTo(100);
+        }
+    }
+
+    @Test
+    void dropsExpiredEntriesBeforeLiveOnes() throws Exception {
+        BoundedCache<Integer, String> cache = new BoundedCache<>(10, TimeUnit.MILLISECONDS.toNanos(50));
+        for (int i = 0; i < 10; i++) {
+            cache.put(i, "v" + i);
+        }
+        Thread.sleep(100);
+
+        cache.put(10, "v10");
+
+        assertThat(cache.size()).isEqualTo(1);
+        assertThat(cache.get(10)).isEqualTo("v10");
+    }
+
+    @Test
+    void expiredEntriesAreMisses() throws Exception {
+        BoundedCache<String, String> cache = new BoundedCache<>(10, TimeUnit.MILLISECONDS.toNanos(50));
+        cache.put("a", "1");
+        assertThat(cache.get("a")).isEqualTo("1");
+
+        Thread.sleep(100);
+
+        assertThat(cache.get("a")).isNull();
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    void loadsOnlyOnMissesAndDoesNotCacheAbsentValues() {
+        BoundedCache<String, String> cache = new BoundedCache<>(10, HOUR);
+        AtomicInteger loads = new AtomicInteger();
+
+        assertThat(cache.getOrLoad("a", key -> key + loads.incrementAndGet())).isEqualTo("a1");
+        assertThat(cache.getOrLoad("a", key -> key + loads.incrementAndGet())).isEqualTo("a1");
+        assertThat(cache.getOrLoad("missing", key -> { loads.incrementAndGet(); return null; })).isNull();
+        assertThat(cache.getOrLoad("missing", key -> { loads.incrementAndGet(); return null; })).isNull();
+
+        assertThat(loads).hasValue(3);
+    }
+
+    @Test
+    void invalidateForcesAReload() {
+        BoundedCache<String, String> cache = new BoundedCache<>(10, HOUR);
+        cache.put("a", "old");
+
+        cache.invalidate("a");
+
+        assertThat(cache.getOrLoad("a", key -> "new")).isEqualTo("new");
+    }
+}
@@ -0,0 +1,157 @@
+package com.example.securetransfer.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class DeltaUtilsTest {
+
+    private static final int BLOCK_SIZE = 64;
+
+    private final Random random = new Random(7);
+
+    @Test
+    void identicalFileIsSentAsOneCopy() throws Exception {
+        byte[] base = randomBytes(BLOCK_SIZE * 20);
+
+        byte[] delta = roundTrip(base, base.clone());
+
+        // Header (12 bytes) plus a single merged COPY instruction (9 bytes)
+        assertThat(delta).hasSize(21);
+    }
+
+    @Test
+    void insertInTheMiddleOnlySendsTheInsertedBytes() throws Exception {
+        byte[] base = randomBytes(BLOCK_SIZE * 20);
+        byte[] inserted = randomBytes(10);
+        byte[] target = concat(Arrays.copyOfRange(base, 0, BLOCK_SIZE * 10 + 5), inserted,
+                Arrays.copyOfRange(base, BLOCK_SIZE * 10 + 5, base.length));
+
+        byte[] delta = roundTrip(base, target);
+
+        // Only the block the insert landed in is resent, as literal bytes
+        assertThat(delta.length).isLessThan(2 * BLOCK_SIZE + 10 + 64);
+    }
+
+    @Test
+    void appendOnlySendsTheAppendedBytes() throws Exception {
+        byte[] base = randomBytes(BLOCK_SIZE * 20);
+        byte[] appended = randomBytes(100);
+
+        byte[] delta = roundTrip(base, concat(base, appended));
+
+        assertThat(delta.length).isLessThan(appended.length + 64);
+    }
+
+    @Test
+    void shortTailBlockOfTheBaseIsReused() throws Exception {
+        byte[] base = randomBytes(BLOCK_SIZE * 5 + 17);
+        byte[] target = base.clone();
+        target[3] ^= 1;
+
+        byte[] delta = roundTrip(base, target);
+
+        // The changed first block is literal; the rest, including the 17-byte tail, are copies
+        assertThat(delta.length).isLessThan(BLOCK_SIZE + 64);
+    }
+
+    @Test
+    void emptyBase() throws Exception {
+        byte[] target = randomBytes(BLOCK_SIZE * 3 + 5);
+
+        byte[] delta = roundTrip(new byte[0], target);
+
+        assertThat(delta.length).isGreaterThan(target.length);
+    }
+
+    @Test
+    void emptyTarget() throws Exception {
+        roundTrip(randomBytes(BLOCK_SIZE * 3), new byte[0]);
+    }
+
+    @Test
+    void targetSmallerThanOneBlock() throws Exception {
+        byte[] base = randomBytes(BLOCK_SIZE * 3);
+
+        roundTrip(base, Arrays.copyOfRange(base, 0, BLOCK_SIZE / 2));
+        roundTrip(base, randomBytes(BLOCK_SIZE - 1));
+    }
+
+    @Test
+    void rejectsCopyWithNegativeBlockIndex() throws Exception {
+        byte[] delta = header(BLOCK_SIZE, 10, out -> {
+            out.writeByte(1);
+            out.writeInt(-1);
+            out.writeInt(10);
+        });
+
+        assertThatThrownBy(() -> DeltaUtils.applyDelta(randomBytes(BLOCK_SIZE * 2), delta))
+            .isInstanceOf(IOException.class);
+    }
+
+    @Test
+    void rejectsCopyPastTheEndOfTheBase() throws Exception {
+        byte[] delta = header(BLOCK_SIZE, 10, out -> {
+            out.writeByte(1);
+            out.writeInt(2);
+            out.writeInt(10);
+        });
+
+        assertThatThrownBy(() -> DeltaUtils.applyDelta(randomBytes(BLOCK_SIZE * 2), delta))
+            .isInstanceOf(IOException.class);
+    }
+
+    @Test
+    void rejectsLiteralOverrunningTheTarget() throws Exception {
+        byte[] delta = header(BLOCK_SIZE, 4, out -> {
+            out.writeByte(2);
+            out.writeInt(5);
+            out.write(new byte[5]);
+        });
+
+        assertThatThrownBy(() -> DeltaUtils.applyDelta(new byte[0], delta))
+            .isInstanceOf(IOException.class);
+    }
+
+    private static byte[] roundTrip(byte[] base, byte[] target) throws Exception {
+        byte[] delta = DeltaUtils.computeDelta(target, DeltaUtils.computeSignatures(base, BLOCK_SIZE), BLOCK_SIZE);
+        assertThat(DeltaUtils.applyDelta(base, delta)).isEqualTo(target);
+        return delta;
+    }
+
+    private byte[] randomBytes(int length) {
+        byte[] bytes = new byte[length];
+        random.nextBytes(bytes);
+        return bytes;
+    }
+
+    private static byte[] concat(byte[]... parts) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (byte[] part : parts) {
+            out.writeBytes(part);
+        }
+        return out.toByteArray();
+    }
+
+    private interface Body {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    private static byte[] header(int blockSize, int targetLength, Body body) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(buffer);
+        out.writeInt(0x53464431);
+        out.writeInt(blockSize);
+        out.writeInt(targetLength);
+        body.write(out);
+        out.flush();
+        return buffer.toByteArray();
+    }
+}
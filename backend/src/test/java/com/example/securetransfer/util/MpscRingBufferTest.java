@@ -0,0 +1,120 @@
+package com.example.securetransfer.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MpscRingBufferTest {
+
+    private static final int PRODUCERS = 4;
+    private static final int PER_PRODUCER = 20_000;
+
+    @Test
+    void capacityIsRoundedUpToAPowerOfTwo() {
+        assertThat(new MpscRingBuffer<>(5).capacity()).isEqualTo(8);
+        assertThat(new MpscRingBuffer<>(8).capacity()).isEqualTo(8);
+        assertThat(new MpscRingBuffer<>(1000).capacity()).isEqualTo(1024);
+    }
+
+    @Test
+    void drainsInOfferOrder() {
+        MpscRingBuffer<Integer> ring = new MpscRingBuffer<>(4);
+        List<Integer> drained = new ArrayList<>();
+        for (int round = 0; round < 3; round++) {
+            for (int i = 0; i < 4; i++) {
+                assertThat(ring.offer(round * 4 + i)).isTrue();
+            }
+            assertThat(ring.offer(-1)).isFalse();
+            assertThat(ring.drainTo(drained, 2)).isEqualTo(2);
+            assertThat(ring.drainTo(drained, 10)).isEqualTo(2);
+            assertThat(ring.size()).isZero();
+        }
+        assertThat(drained).containsExactly(0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11);
+    }
+
+    @Test
+    void concurrentProducersLoseAndDuplicateNothingWhileTheConsumerKeepsUp() throws Exception {
+        // A small ring forces constant wrap-around; producers retry until their offer is accepted
+        MpscRingBuffer<Long> ring = new MpscRingBuffer<>(64);
+        ExecutorService producers = Executors.newFixedThreadPool(PRODUCERS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int p = 0; p < PRODUCERS; p++) {
+            long producer = p;
+            futures.add(producers.submit(() -> {
+                start.await();
+                for (long i = 0; i < PER_PRODUCER; i++) {
+                    while (!ring.offer(producer << 32 | i)) {
+                        Thread.yield();
+                    }
+                }
+                return null;
+            }));
+        }
+
+        start.countDown();
+        List<Long> drained = new ArrayList<>(PRODUCERS * PER_PRODUCER);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (drained.size() < PRODUCERS * PER_PRODUCER && System.nanoTime() < deadline) {
+            if (ring.drainTo(drained, 100) == 0) {
+                Thread.yield();
+            }
+        }
+        for (Future<?> future : futures) {
+            future.get(1, TimeUnit.SECONDS);
+        }
+        producers.shutdown();
+
+        assertThat(drained).hasSize(PRODUCERS * PER_PRODUCER);
+        assertThat(new HashSet<>(drained)).hasSize(PRODUCERS * PER_PRODUCER);
+        // Each producer's elements come out in the order it offered them
+        long[] next = new long[PRODUCERS];
+        for (long element : drained) {
+            int producer = (int) (element >>> 32);
+            assertThat(element & 0xffffffffL).isEqualTo(next[producer]++);
+        }
+        assertThat(ring.size()).isZero();
+    }
+
+    @Test
+    void fullRingRejectsExactlyTheOverflowUnderContention() throws Exception {
+        MpscRingBuffer<Long> ring = new MpscRingBuffer<>(1024);
+        AtomicInteger accepted = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        ExecutorService producers = Executors.newFixedThreadPool(PRODUCERS);
+        CountDownLatch start = new CountDownLatch(1);
+        for (int p = 0; p < PRODUCERS; p++) {
+            long producer = p;
+            producers.execute(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (long i = 0; i < 1000; i++) {
+                    (ring.offer(producer << 32 | i) ? accepted : rejected).incrementAndGet();
+                }
+            });
+        }
+        start.countDown();
+        producers.shutdown();
+        assertThat(producers.awaitTermination(30, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(accepted.get()).isEqualTo(1024);
+        assertThat(rejected.get()).isEqualTo(PRODUCERS * 1000 - 1024);
+        Set<Long> drained = new HashSet<>();
+        assertThat(ring.drainTo(drained, Integer.MAX_VALUE)).isEqualTo(1024);
+        assertThat(drained).hasSize(1024);
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.securetransfer.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TokenBucketTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    void allowsABurstOfCapacityThenReportsTheWaitForOneToken() {
+        // One token a second, so refill during the test is negligible
+        TokenBucket bucket = new TokenBucket(3, 1);
+
+        assertThat(bucket.tryAcquire(1)).isZero();
+        assertThat(bucket.tryAcquire(1)).isZero();
+        assertThat(bucket.tryAcquire(1)).isZero();
+
+        long wait = bucket.tryAcquire(1);
+        assertThat(wait).isPositive().isLessThanOrEqualTo(SECOND);
+    }
+
+    @Test
+    void rejectedAcquireTakesNothing() {
+        TokenBucket bucket = new TokenBucket(2, 1);
+        bucket.tryAcquire(2);
+
+        long first = bucket.tryAcquire(1);
+        long second = bucket.tryAcquire(1);
+
+        // Had the rejected call been charged, the second wait would be a whole token longer
+        assertThat(second).isLessThanOrEqualTo(first);
+    }
+
+    @Test
+    void neverGrantsMoreThanTheCapacityAtOnce() {
+        TokenBucket bucket = new TokenBucket(5, 1);
+
+        long wait = bucket.tryAcquire(6);
+
+        assertThat(wait).isPositive().isLessThanOrEqualTo(SECOND);
+        assertThat(bucket.isFull()).isTrue();
+    }
+
+    @Test
+    void refillsAtTheConfiguredRate() throws Exception {
+        TokenBucket bucket = new TokenBucket(1, 10);
+        // Taken back to back; asserting in between can take longer than a token to refill
+        long first = bucket.tryAcquire(1);
+        long second = bucket.tryAcquire(1);
+        assertThat(first).isZero();
+        assertThat(second).isPositive().isLessThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(100));
+
+        Thread.sleep(150);
+
+        assertThat(bucket.tryAcquire(1)).isZero();
+    }
+
+    @Test
+    void reserveOverdrawsOnceAndHoldsBackLaterRequestsUntilRepaid() {
+        TokenBucket bucket = new TokenBucket(10, 1);
+
+        assertThat(bucket.tryReserve(100)).isZero();
+
+        // 100 tokens taken from a bucket of 10 leaves 90 seconds of debt
+        long reserveWait = bucket.tryReserve(1);
+        assertThat(reserveWait).isBetween(89 * SECOND, 90 * SECOND);
+        assertThat(bucket.tryAcquire(1)).isBetween(90 * SECOND, 91 * SECOND);
+    }
+
+    @Test
+    void reserveWithinTheCapacityLeavesRoomForMore() {
+        TokenBucket bucket = new TokenBucket(10, 1);
+
+        assertThat(bucket.tryReserve(4)).isZero();
+        assertThat(bucket.tryReserve(4)).isZero();
+        assertThat(bucket.tryAcquire(2)).isZero();
+        assertThat(bucket.tryAcquire(1)).isPositive();
+    }
+
+    @Test
+    void isFullOnlyOnceEveryTokenIsBack() throws Exception {
+        TokenBucket bucket = new TokenBucket(2, 10);
+        assertThat(bucket.isFull()).isTrue();
+
+        bucket.tryAcquire(1);
+        boolean full = bucket.isFull();
+        assertThat(full).isFalse();
+
+        Thread.sleep(150);
+        assertThat(bucket.isFull()).isTrue();
+    }
+
+    @Test
+    void rejectsNonPositiveSettings() {
+        assertThatThrownBy(() -> new TokenBucket(0, 1)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new TokenBucket(1, 0)).isInstanceOf(IllegalArgumentException.class);
+    }
+}